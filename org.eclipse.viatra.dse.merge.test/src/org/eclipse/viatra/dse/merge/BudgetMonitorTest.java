@@ -0,0 +1,92 @@
+package org.eclipse.viatra.dse.merge;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.viatra.dse.merge.DSEMergeReport.StopReason;
+import org.junit.Test;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.Lists;
+
+public class BudgetMonitorTest {
+
+	private static final long TIME_LIMIT = 200;
+	private static final long WORK = 120;
+
+	private final FakeTicker ticker = new FakeTicker();
+
+	private BudgetMonitor monitor() {
+		return new BudgetMonitor(DSEMergeBudget.unlimited().withTimeLimit(TIME_LIMIT, TimeUnit.MILLISECONDS), ticker);
+	}
+
+	@Test
+	public void clockStartsOnStart() {
+		BudgetMonitor monitor = monitor();
+		ticker.advance(TIME_LIMIT + 50);
+
+		assertEquals(0, monitor.getElapsedMillis());
+		monitor.start();
+		ticker.advance(WORK);
+		assertEquals(WORK, monitor.getElapsedMillis());
+		assertFalse(monitor.isExceeded());
+	}
+
+	/**
+	 * Mirrors a session merging more remotes than it has workers: the monitors are
+	 * created when the merges are queued, and each merge runs for less than its limit.
+	 */
+	@Test
+	public void queuedRunsKeepTheirBudget() {
+		List<BudgetMonitor> runs = Lists.newArrayList();
+		for (int i = 0; i < 4; i++) {
+			runs.add(monitor());
+		}
+		for (BudgetMonitor monitor : runs) {
+			monitor.start();
+			ticker.advance(WORK);
+			assertFalse(monitor.isExceeded());
+		}
+	}
+
+	@Test
+	public void startTwiceKeepsTheFirstStart() {
+		BudgetMonitor monitor = monitor();
+		monitor.start();
+		ticker.advance(WORK);
+		monitor.start();
+		ticker.advance(WORK);
+
+		assertEquals(2 * WORK, monitor.getElapsedMillis());
+	}
+
+	@Test
+	public void timeLimitStopsAfterStart() {
+		BudgetMonitor monitor = monitor();
+		monitor.start();
+		ticker.advance(TIME_LIMIT);
+		assertFalse(monitor.isExceeded());
+
+		ticker.advance(1);
+		assertTrue(monitor.isExceeded());
+		assertEquals(StopReason.TIME_LIMIT, monitor.getStopReason());
+	}
+
+	private static class FakeTicker extends Ticker {
+
+		private long nanos;
+
+		@Override
+		public long read() {
+			return nanos;
+		}
+
+		void advance(long millis) {
+			nanos += TimeUnit.MILLISECONDS.toNanos(millis);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package org.eclipse.viatra.dse.merge;
+
+import static org.eclipse.viatra.dse.merge.TestChanges.attribute;
+import static org.eclipse.viatra.dse.merge.TestChanges.changeSet;
+import static org.eclipse.viatra.dse.merge.TestChanges.create;
+import static org.eclipse.viatra.dse.merge.TestChanges.delete;
+import static org.eclipse.viatra.dse.merge.TestChanges.reference;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.eclipse.viatra.dse.merge.util.ChangeOrdinals;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSetMultimap;
+
+public class ConflictGraphTest {
+
+	@Test
+	public void setAttributesConflictAcrossSidesOnly() {
+		Attribute local1 = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Attribute local2 = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+		Attribute remote = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "c");
+		ConflictGraph graph = build(changeSet(local1, local2), changeSet(remote));
+
+		assertConflicts(graph, local1, remote);
+		assertConflicts(graph, local2, remote);
+		assertConflicts(graph, remote, local1, local2);
+	}
+
+	@Test
+	public void addedAttributeConflictsWithSameValueOnly() {
+		Attribute add = attribute(Kind.ADD, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Attribute removeSame = attribute(Kind.REMOVE, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Attribute removeOther = attribute(Kind.REMOVE, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+		ConflictGraph graph = build(changeSet(add), changeSet(removeSame, removeOther));
+
+		assertConflicts(graph, add, removeSame);
+		assertConflicts(graph, removeSame, add);
+		assertConflicts(graph, removeOther);
+	}
+
+	@Test
+	public void nonContainmentReferenceAddsAreIndependent() {
+		Change local = reference(Kind.ADD, 1, EcorePackage.Literals.ECLASS__ESUPER_TYPES, 2);
+		Change remote = reference(Kind.ADD, 1, EcorePackage.Literals.ECLASS__ESUPER_TYPES, 2);
+		ConflictGraph graph = build(changeSet(local), changeSet(remote));
+
+		assertTrue(graph.isIndependent(local.getOrdinal()));
+		assertTrue(graph.isIndependent(remote.getOrdinal()));
+	}
+
+	@Test
+	public void containmentAddsOfTheSameTargetConflict() {
+		Change local = reference(Kind.ADD, 1, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, 3);
+		Change remote = reference(Kind.ADD, 2, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, 3);
+		ConflictGraph graph = build(changeSet(local), changeSet(remote));
+
+		assertConflicts(graph, local, remote);
+		assertConflicts(graph, remote, local);
+		assertFalse(graph.isIndependent(local.getOrdinal()));
+	}
+
+	@Test
+	public void createDisablesTheOtherCreateWithItsAttributes() {
+		Create local = create(5, 1, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcorePackage.Literals.ECLASS);
+		Create remote = create(5, 1, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcorePackage.Literals.ECLASS);
+		Attribute name = attribute(Kind.SET, 5, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		remote.getAttributes().add(name);
+		ConflictGraph graph = build(changeSet(local), changeSet(remote));
+
+		assertConflicts(graph, local, remote, name);
+		assertConflicts(graph, remote, local);
+	}
+
+	@Test
+	public void deletesTakePartInDependencies() {
+		Change delete = delete(2);
+		Attribute touching = attribute(Kind.SET, 3, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Attribute other = attribute(Kind.SET, 4, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		ConflictGraph graph = build(changeSet(delete), changeSet(touching, other));
+
+		BitSet dependent = graph.dependentChanges(ImmutableSetMultimap.<Object, Integer>of(3, delete.getOrdinal()));
+
+		assertTrue(graph.isIndependent(delete.getOrdinal()));
+		assertTrue(dependent.get(delete.getOrdinal()));
+		assertTrue(dependent.get(touching.getOrdinal()));
+		assertFalse(dependent.get(other.getOrdinal()));
+	}
+
+	private static ConflictGraph build(ChangeSet local, ChangeSet remote) {
+		int count = ChangeOrdinals.assign(local, remote);
+		return ConflictGraph.build(local, remote, new ConflictIndex(local, remote), count);
+	}
+
+	private static void assertConflicts(ConflictGraph graph, Change applied, Change... disabled) {
+		int[] expected = new int[disabled.length];
+		for (int i = 0; i < disabled.length; i++) {
+			expected[i] = disabled[i].getOrdinal();
+		}
+		Arrays.sort(expected);
+		int[] actual = graph.getConflicts(applied.getOrdinal());
+		Arrays.sort(actual);
+		assertArrayEquals(expected, actual);
+		assertEquals(expected.length, graph.getDegree(applied.getOrdinal()));
+	}
+}
@@ -0,0 +1,78 @@
+package org.eclipse.viatra.dse.merge;
+
+import static org.eclipse.viatra.dse.merge.TestChanges.attribute;
+import static org.eclipse.viatra.dse.merge.TestChanges.changeSet;
+import static org.eclipse.viatra.dse.merge.TestChanges.create;
+import static org.eclipse.viatra.dse.merge.TestChanges.reference;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.eclipse.viatra.dse.merge.util.ChangeOrdinals;
+import org.junit.Test;
+
+public class ConflictIndexTest {
+
+	@Test
+	public void collectsLargeBuckets() {
+		ChangeSet local = changeSet();
+		ChangeSet remote = changeSet();
+		for (int i = 0; i < 500; i++) {
+			(i % 2 == 0 ? local : remote).getChanges().add(attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "v" + i));
+		}
+		ChangeOrdinals.assign(local, remote);
+
+		ConflictIndex index = new ConflictIndex(local, remote);
+
+		assertArrayEquals(ordinals(local, remote), sorted(index.getAttributes(1, EcorePackage.Literals.ENAMED_ELEMENT__NAME)));
+		assertEquals(0, index.getAttributes(2, EcorePackage.Literals.ENAMED_ELEMENT__NAME).length);
+		assertEquals(0, index.getAttributes(1, EcorePackage.Literals.ECLASS__ABSTRACT).length);
+	}
+
+	@Test
+	public void indexesByKind() {
+		Attribute name = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Change supertype = reference(Kind.ADD, 1, EcorePackage.Literals.ECLASS__ESUPER_TYPES, 2);
+		Change classifier = reference(Kind.ADD, 3, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, 4);
+		Change created = create(5, 3, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcorePackage.Literals.ECLASS);
+		ChangeSet local = changeSet(name, supertype);
+		ChangeSet remote = changeSet(classifier, created);
+		ChangeOrdinals.assign(local, remote);
+
+		ConflictIndex index = new ConflictIndex(local, remote);
+
+		assertArrayEquals(new int[] { name.getOrdinal() }, index.getAttributes(1, EcorePackage.Literals.ENAMED_ELEMENT__NAME));
+		assertArrayEquals(new int[] { supertype.getOrdinal() }, index.getReferences(1, EcorePackage.Literals.ECLASS__ESUPER_TYPES));
+		assertArrayEquals(new int[] { classifier.getOrdinal() }, index.getReferences(3, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS));
+		assertArrayEquals(new int[] { classifier.getOrdinal() }, index.getContainments(4));
+		assertEquals(0, index.getContainments(2).length);
+		assertArrayEquals(new int[] { created.getOrdinal() }, index.getCreates(5));
+	}
+
+	private static int[] ordinals(ChangeSet... changeSets) {
+		int count = 0;
+		for (ChangeSet changeSet : changeSets) {
+			count += changeSet.getChanges().size();
+		}
+		int[] ordinals = new int[count];
+		int i = 0;
+		for (ChangeSet changeSet : changeSets) {
+			for (Change change : changeSet.getChanges()) {
+				ordinals[i++] = change.getOrdinal();
+			}
+		}
+		return sorted(ordinals);
+	}
+
+	private static int[] sorted(int[] ordinals) {
+		int[] copy = ordinals.clone();
+		Arrays.sort(copy);
+		return copy;
+	}
+}
@@ -0,0 +1,82 @@
+package org.eclipse.viatra.dse.merge;
+
+import static org.eclipse.viatra.dse.merge.TestChanges.attribute;
+import static org.eclipse.viatra.dse.merge.TestChanges.changeSet;
+import static org.eclipse.viatra.dse.merge.util.TestModel.children;
+import static org.eclipse.viatra.dse.merge.util.TestModel.node;
+import static org.eclipse.viatra.dse.merge.util.TestModel.refs;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.scope.ScopeFactory;
+import org.junit.Test;
+
+public class DSEMergeScopeAdapterTest {
+
+	private static DSEMergeScope scope(EObject origin, ChangeSet local, ChangeSet remote) {
+		DSEMergeScope scope = ScopeFactory.eINSTANCE.createDSEMergeScope();
+		scope.setOrigin(origin);
+		scope.setLocal(local);
+		scope.setRemote(remote);
+		return scope;
+	}
+
+	@Test
+	public void deleteRemovesInboundReferences() {
+		EObject deleted = node(2);
+		EObject referencing = node(3);
+		EObject root = node(1, deleted, referencing);
+		refs(referencing).add(deleted);
+		refs(root).add(deleted);
+		refs(root).add(referencing);
+		DSEMergeScopeAdapter adapter = DSEMergeScopeAdapter.get(scope(root, changeSet(), changeSet()));
+
+		adapter.delete(deleted);
+
+		assertNull(deleted.eContainer());
+		assertEquals(1, children(root).size());
+		assertTrue(refs(referencing).isEmpty());
+		assertEquals(1, refs(root).size());
+		assertSame(referencing, refs(root).get(0));
+	}
+
+	@Test
+	public void deleteFollowsLaterReferences() {
+		EObject deleted = node(2);
+		EObject root = node(1, deleted);
+		DSEMergeScopeAdapter adapter = DSEMergeScopeAdapter.get(scope(root, changeSet(), changeSet()));
+		adapter.getCrossReferencer();
+		EObject added = node(3);
+		children(root).add(added);
+		refs(added).add(deleted);
+
+		adapter.delete(deleted);
+
+		assertTrue(refs(added).isEmpty());
+		assertFalse(adapter.getCrossReferencer().getInverseReferences(deleted, false).iterator().hasNext());
+	}
+
+	@Test
+	public void deleteRemovesTheChange() {
+		Change local = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Change remote = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+		ChangeSet localSet = changeSet(local);
+		DSEMergeScopeAdapter adapter = DSEMergeScopeAdapter.get(scope(node(1), localSet, changeSet(remote)));
+		assertSame(local, adapter.getChange(local.getOrdinal()));
+
+		adapter.delete(local);
+
+		assertTrue(localSet.getChanges().isEmpty());
+		assertNull(local.eContainer());
+		assertSame(local, adapter.getChange(local.getOrdinal()));
+	}
+}
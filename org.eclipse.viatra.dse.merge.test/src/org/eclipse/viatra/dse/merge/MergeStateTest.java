@@ -0,0 +1,150 @@
+package org.eclipse.viatra.dse.merge;
+
+import static org.eclipse.viatra.dse.merge.TestChanges.attribute;
+import static org.eclipse.viatra.dse.merge.TestChanges.changeSet;
+import static org.eclipse.viatra.dse.merge.TestChanges.create;
+import static org.eclipse.viatra.dse.merge.TestChanges.delete;
+import static org.eclipse.viatra.dse.merge.util.TestModel.node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.change.ChangeDescription;
+import org.eclipse.emf.ecore.change.util.ChangeRecorder;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.scope.ScopeFactory;
+import org.junit.Test;
+
+/**
+ * The transformations are recorded and reversed with change descriptions, the way
+ * the design space manager undoes them.
+ */
+public class MergeStateTest {
+
+	private final Attribute local = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+	private final Change deleted = delete(2);
+	private final Attribute remote = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+	private final Create created = create(3, 1, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcorePackage.Literals.ECLASS);
+	private final Attribute createdName = attribute(Kind.SET, 3, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "c");
+	private final DSEMergeScope scope;
+	private final DSEMergeScopeAdapter adapter;
+
+	public MergeStateTest() {
+		created.getAttributes().add(createdName);
+		scope = ScopeFactory.eINSTANCE.createDSEMergeScope();
+		scope.setOrigin(node(1, node(2)));
+		scope.setLocal(changeSet(local, deleted));
+		scope.setRemote(changeSet(remote, created));
+		adapter = DSEMergeScopeAdapter.get(scope);
+	}
+
+	@Test
+	public void buildsTheViewFromTheChanges() {
+		MergeState state = adapter.getState();
+
+		assertEquals(5, state.getExecutableCount());
+		assertEquals(0, state.getAppliedCount());
+		assertTrue(state.isExecutable(createdName.getOrdinal()));
+	}
+
+	@Test
+	public void followsAppliedAndDisabledChanges() {
+		MergeState state = adapter.getState();
+
+		remote.setExecutable(false);
+		adapter.delete(local);
+
+		assertFalse(state.isExecutable(remote.getOrdinal()));
+		assertFalse(state.isApplied(remote.getOrdinal()));
+		assertFalse(state.isExecutable(local.getOrdinal()));
+		assertTrue(state.isApplied(local.getOrdinal()));
+		assertEquals(3, state.getExecutableCount());
+	}
+
+	@Test
+	public void undoRestoresTheState() {
+		MergeState state = adapter.getState();
+		MergeState.Code initial = state.createCode();
+
+		ChangeRecorder recorder = record();
+		remote.setExecutable(false);
+		adapter.delete(local);
+		ChangeDescription step = end(recorder);
+		MergeState.Code applied = state.createCode();
+
+		step.applyAndReverse();
+		assertEquals(initial, state.createCode());
+		assertTrue(state.isExecutable(remote.getOrdinal()));
+		assertFalse(state.isApplied(local.getOrdinal()));
+
+		step.applyAndReverse();
+		assertEquals(applied, state.createCode());
+	}
+
+	@Test
+	public void undoesNestedTransformationsInOrder() {
+		MergeState state = adapter.getState();
+		MergeState.Code initial = state.createCode();
+
+		ChangeRecorder recorder = record();
+		adapter.delete(createdName);
+		adapter.delete(created);
+		ChangeDescription first = end(recorder);
+		MergeState.Code afterFirst = state.createCode();
+		assertTrue(state.isApplied(created.getOrdinal()));
+		assertTrue(state.isApplied(createdName.getOrdinal()));
+
+		recorder = record();
+		deleted.setExecutable(false);
+		adapter.delete(local);
+		ChangeDescription second = end(recorder);
+
+		second.applyAndReverse();
+		assertEquals(afterFirst, state.createCode());
+		first.applyAndReverse();
+		assertEquals(initial, state.createCode());
+		assertTrue(state.isExecutable(createdName.getOrdinal()));
+	}
+
+	@Test
+	public void removedCreateAppliesItsAttributes() {
+		MergeState state = adapter.getState();
+
+		adapter.delete(created);
+
+		assertTrue(state.isApplied(created.getOrdinal()));
+		assertTrue(state.isApplied(createdName.getOrdinal()));
+		assertFalse(state.isExecutable(createdName.getOrdinal()));
+	}
+
+	@Test
+	public void matchesAFreshView() {
+		adapter.getState();
+		ChangeRecorder recorder = record();
+		deleted.setExecutable(false);
+		adapter.delete(createdName);
+		adapter.delete(local);
+		end(recorder).applyAndReverse();
+		adapter.delete(remote);
+
+		MergeState.Code followed = adapter.getState().createCode();
+		MergeState.Code fresh = adapter.getContext().attach(scope).getState().createCode();
+
+		assertEquals(fresh, followed);
+	}
+
+	private ChangeRecorder record() {
+		return new ChangeRecorder(scope);
+	}
+
+	private static ChangeDescription end(ChangeRecorder recorder) {
+		ChangeDescription description = recorder.endRecording();
+		recorder.dispose();
+		return description;
+	}
+}
@@ -0,0 +1,138 @@
+package org.eclipse.viatra.dse.merge;
+
+import static org.eclipse.viatra.dse.merge.TestChanges.attribute;
+import static org.eclipse.viatra.dse.merge.TestChanges.changeSet;
+import static org.eclipse.viatra.dse.merge.TestChanges.create;
+import static org.eclipse.viatra.dse.merge.TestChanges.delete;
+import static org.eclipse.viatra.dse.merge.TestChanges.must;
+import static org.eclipse.viatra.dse.merge.TestChanges.reference;
+import static org.eclipse.viatra.dse.merge.util.TestModel.node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.change.ChangeDescription;
+import org.eclipse.emf.ecore.change.util.ChangeRecorder;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.scope.ScopeFactory;
+import org.eclipse.viatra.dse.statecode.IStateCoder;
+import org.junit.Test;
+
+public class StateCoderTest {
+
+	private static DSEMergeScope scope(ChangeSet local, ChangeSet remote, ChangeSet... branches) {
+		DSEMergeScope scope = ScopeFactory.eINSTANCE.createDSEMergeScope();
+		scope.setOrigin(node(1, node(2)));
+		scope.setLocal(local);
+		scope.setRemote(remote);
+		for (ChangeSet branch : branches) {
+			scope.getBranches().add(branch);
+		}
+		return scope;
+	}
+
+	private static DSEMergeScope sample() {
+		return scope(
+				changeSet(attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a"), delete(2)),
+				changeSet(must(reference(Kind.ADD, 1, EcorePackage.Literals.ECLASS__ESUPER_TYPES, 2)),
+						create(3, 1, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcorePackage.Literals.ECLASS)),
+				changeSet(attribute(Kind.ADD, 2, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b")));
+	}
+
+	private static Object code(IStateCoder coder, DSEMergeScope scope) {
+		coder.init(scope);
+		return coder.createStateCode();
+	}
+
+	@Test
+	public void copiesHaveEqualFingerprints() {
+		DSEMergeScope scope = sample();
+
+		assertEquals(code(new DSEMergeFingerprintSerializer(), scope), code(new DSEMergeFingerprintSerializer(), EcoreUtil.copy(scope)));
+	}
+
+	@Test
+	public void fingerprintIgnoresTheOrderOfChanges() {
+		DSEMergeScope scope = sample();
+		Object before = code(new DSEMergeFingerprintSerializer(), scope);
+
+		scope.getRemote().getChanges().move(0, 1);
+
+		assertEquals(before, code(new DSEMergeFingerprintSerializer(), scope));
+	}
+
+	@Test
+	public void fingerprintDependsOnTheSide() {
+		Change change = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		DSEMergeScope local = scope(changeSet(change), changeSet());
+		DSEMergeScope remote = scope(changeSet(), changeSet(EcoreUtil.copy(change)));
+
+		assertFalse(code(new DSEMergeFingerprintSerializer(), local).equals(code(new DSEMergeFingerprintSerializer(), remote)));
+	}
+
+	@Test
+	public void fingerprintDependsOnExecutable() {
+		DSEMergeScope scope = sample();
+		Object before = code(new DSEMergeFingerprintSerializer(), scope);
+
+		scope.getLocal().getChanges().get(0).setExecutable(false);
+
+		assertFalse(before.equals(code(new DSEMergeFingerprintSerializer(), scope)));
+	}
+
+	/**
+	 * Applies, moves and undoes changes on a scope followed by the incremental coder
+	 * and compares each of its codes with a fingerprint computed from scratch.
+	 */
+	@Test
+	public void incrementalMatchesFullFingerprint() {
+		DSEMergeScope scope = sample();
+		DSEMergeIncrementalSerializer incremental = new DSEMergeIncrementalSerializer();
+		incremental.init(scope);
+		DSEMergeFingerprintSerializer full = new DSEMergeFingerprintSerializer();
+		full.init(scope);
+		Object initial = full.createStateCode();
+		assertEquals(initial, incremental.createStateCode());
+
+		ChangeRecorder recorder = new ChangeRecorder(scope);
+		Change disabled = scope.getRemote().getChanges().get(0);
+		disabled.setExecutable(false);
+		assertEquals(full.createStateCode(), incremental.createStateCode());
+
+		EcoreUtil.remove(scope.getLocal().getChanges().get(0));
+		assertEquals(full.createStateCode(), incremental.createStateCode());
+
+		((Attribute) scope.getBranches().get(0).getChanges().get(0)).setValue("c");
+		assertEquals(full.createStateCode(), incremental.createStateCode());
+
+		scope.getLocal().getChanges().add(delete(1));
+		scope.getRemote().getChanges().move(0, 1);
+		assertEquals(full.createStateCode(), incremental.createStateCode());
+
+		scope.getLocal().getChanges().clear();
+		assertEquals(full.createStateCode(), incremental.createStateCode());
+
+		ChangeDescription step = recorder.endRecording();
+		recorder.dispose();
+		step.applyAndReverse();
+		assertEquals(initial, full.createStateCode());
+		assertEquals(initial, incremental.createStateCode());
+	}
+
+	@Test
+	public void bitSetCodesFollowTheChanges() {
+		DSEMergeScope scope = sample();
+		DSEMergeBitSetSerializer coder = new DSEMergeBitSetSerializer();
+		Object initial = code(coder, scope);
+		assertEquals(initial, code(new DSEMergeBitSetSerializer(), EcoreUtil.copy(scope)));
+
+		scope.getLocal().getChanges().get(1).setExecutable(false);
+
+		assertFalse(initial.equals(coder.createStateCode()));
+	}
+}
@@ -0,0 +1,83 @@
+package org.eclipse.viatra.dse.merge;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Delete;
+import org.eclipse.viatra.dse.merge.model.Id;
+import org.eclipse.viatra.dse.merge.model.IdType;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.eclipse.viatra.dse.merge.model.ModelFactory;
+import org.eclipse.viatra.dse.merge.model.Priority;
+import org.eclipse.viatra.dse.merge.model.Reference;
+
+/**
+ * Builds the changes of the tests. Elements are referred by int ids.
+ */
+public class TestChanges {
+
+	private TestChanges() {
+	}
+
+	public static Id id(int id) {
+		Id result = ModelFactory.eINSTANCE.createId();
+		result.setType(IdType.EINT);
+		result.setEInt(id);
+		return result;
+	}
+
+	public static ChangeSet changeSet(Change... changes) {
+		ChangeSet changeSet = ModelFactory.eINSTANCE.createChangeSet();
+		for (Change change : changes) {
+			changeSet.getChanges().add(change);
+		}
+		return changeSet;
+	}
+
+	public static Attribute attribute(Kind kind, int src, EStructuralFeature feature, Object value) {
+		Attribute attribute = ModelFactory.eINSTANCE.createAttribute();
+		attribute.setKind(kind);
+		attribute.setSrc(id(src));
+		attribute.setFeature(feature);
+		attribute.setValue(value);
+		return executable(attribute);
+	}
+
+	public static Reference reference(Kind kind, int src, EReference feature, int trg) {
+		Reference reference = ModelFactory.eINSTANCE.createReference();
+		reference.setKind(kind);
+		reference.setSrc(id(src));
+		reference.setFeature(feature);
+		reference.setTrg(id(trg));
+		return executable(reference);
+	}
+
+	public static Create create(int src, int container, EReference feature, EClass clazz) {
+		Create create = ModelFactory.eINSTANCE.createCreate();
+		create.setSrc(id(src));
+		create.setContainer(id(container));
+		create.setFeature(feature);
+		create.setClazz(clazz);
+		return executable(create);
+	}
+
+	public static Delete delete(int src) {
+		Delete delete = ModelFactory.eINSTANCE.createDelete();
+		delete.setSrc(id(src));
+		return executable(delete);
+	}
+
+	public static <T extends Change> T must(T change) {
+		change.setPriority(Priority.MUST);
+		return change;
+	}
+
+	private static <T extends Change> T executable(T change) {
+		change.setExecutable(true);
+		return change;
+	}
+}
@@ -0,0 +1,90 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import static org.eclipse.viatra.dse.merge.TestChanges.attribute;
+import static org.eclipse.viatra.dse.merge.TestChanges.changeSet;
+import static org.eclipse.viatra.dse.merge.TestChanges.create;
+import static org.eclipse.viatra.dse.merge.TestChanges.delete;
+import static org.eclipse.viatra.dse.merge.TestChanges.reference;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Sets;
+
+public class ChangeClustersTest {
+
+	private static final ImmutableSetMultimap<Object, Integer> NO_DEPENDENCIES = ImmutableSetMultimap.of();
+
+	@Test
+	public void separatesUnrelatedChanges() {
+		Change local = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Change remote = attribute(Kind.SET, 2, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+		List<ChangeSet> changeSets = Arrays.asList(changeSet(local), changeSet(remote));
+		int count = ChangeOrdinals.assign(changeSets);
+
+		assertClusters(ChangeClusters.compute(changeSets, count, NO_DEPENDENCIES), bits(local), bits(remote));
+	}
+
+	@Test
+	public void joinsChainsOfTouchedElements() {
+		Change name = attribute(Kind.SET, 1, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Change supertype = reference(Kind.ADD, 1, EcorePackage.Literals.ECLASS__ESUPER_TYPES, 2);
+		Change created = create(3, 2, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcorePackage.Literals.ECLASS);
+		Change other = attribute(Kind.SET, 4, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+		List<ChangeSet> changeSets = Arrays.asList(changeSet(name), changeSet(supertype, other), changeSet(created));
+		int count = ChangeOrdinals.assign(changeSets);
+
+		assertClusters(ChangeClusters.compute(changeSets, count, NO_DEPENDENCIES), bits(name, supertype, created), bits(other));
+	}
+
+	@Test
+	public void joinsDeleteDependencies() {
+		Change deleted = delete(1);
+		Change below = attribute(Kind.SET, 2, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		List<ChangeSet> changeSets = Arrays.asList(changeSet(deleted), changeSet(below));
+		int count = ChangeOrdinals.assign(changeSets);
+
+		assertClusters(ChangeClusters.compute(changeSets, count, NO_DEPENDENCIES), bits(deleted), bits(below));
+		assertClusters(ChangeClusters.compute(changeSets, count, ImmutableSetMultimap.<Object, Integer> of(2, deleted.getOrdinal())),
+				bits(deleted, below));
+	}
+
+	@Test
+	public void joinsLongChains() {
+		ChangeSet local = changeSet();
+		ChangeSet remote = changeSet();
+		for (int i = 0; i < 200; i++) {
+			(i % 2 == 0 ? local : remote).getChanges().add(reference(Kind.ADD, i, EcorePackage.Literals.ECLASS__ESUPER_TYPES, i + 1));
+		}
+		List<ChangeSet> changeSets = Arrays.asList(local, remote);
+		int count = ChangeOrdinals.assign(changeSets);
+
+		BitSet all = new BitSet();
+		all.set(0, count);
+		assertClusters(ChangeClusters.compute(changeSets, count, NO_DEPENDENCIES), all);
+	}
+
+	private static BitSet bits(Change... changes) {
+		BitSet bits = new BitSet();
+		for (Change change : changes) {
+			bits.set(change.getOrdinal());
+		}
+		return bits;
+	}
+
+	private static void assertClusters(List<BitSet> actual, BitSet... expected) {
+		Set<BitSet> clusters = Sets.newHashSet(actual);
+		assertEquals(actual.size(), clusters.size());
+		assertEquals(Sets.newHashSet(expected), clusters);
+	}
+}
@@ -0,0 +1,85 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import static org.eclipse.viatra.dse.merge.TestChanges.attribute;
+import static org.eclipse.viatra.dse.merge.TestChanges.changeSet;
+import static org.eclipse.viatra.dse.merge.TestChanges.create;
+import static org.eclipse.viatra.dse.merge.TestChanges.delete;
+import static org.eclipse.viatra.dse.merge.TestChanges.reference;
+import static org.eclipse.viatra.dse.merge.util.TestModel.node;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.junit.Test;
+
+import com.google.common.collect.ImmutableSetMultimap;
+
+public class DeleteDependenciesTest {
+
+	/**
+	 * 1 contains 2, which contains 3 and 4; 5 is a sibling of 2.
+	 */
+	private static EObject original() {
+		return node(1, node(2, node(3), node(4)), node(5));
+	}
+
+	@Test
+	public void dependsOnChangesBelowTheDeletedElement() {
+		Change deleted = delete(2);
+		Change below = attribute(Kind.SET, 3, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Change created = create(6, 4, EcorePackage.Literals.EPACKAGE__ECLASSIFIERS, EcorePackage.Literals.ECLASS);
+		Change beside = attribute(Kind.SET, 5, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+		ChangeSet local = changeSet(deleted);
+		ChangeSet remote = changeSet(below, created, beside);
+		ChangeOrdinals.assign(local, remote);
+
+		ImmutableSetMultimap<Object, Integer> dependencies = DeleteDependencies.compute(original(), local, remote);
+
+		assertEquals(ImmutableSetMultimap.<Object, Integer> of(3, deleted.getOrdinal(), 4, deleted.getOrdinal()), dependencies);
+	}
+
+	@Test
+	public void dependsOnReferenceTargets() {
+		Change deleted = delete(2);
+		Change referencing = reference(Kind.ADD, 5, EcorePackage.Literals.ECLASS__ESUPER_TYPES, 3);
+		ChangeSet local = changeSet(deleted);
+		ChangeSet remote = changeSet(referencing);
+		ChangeOrdinals.assign(local, remote);
+
+		ImmutableSetMultimap<Object, Integer> dependencies = DeleteDependencies.compute(original(), local, remote);
+
+		assertEquals(ImmutableSetMultimap.<Object, Integer> of(3, deleted.getOrdinal()), dependencies);
+	}
+
+	@Test
+	public void ignoresChangesOfTheSameSide() {
+		Change deleted = delete(2);
+		Change below = attribute(Kind.SET, 3, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		ChangeSet local = changeSet(deleted, below);
+		ChangeSet remote = changeSet();
+		ChangeOrdinals.assign(local, remote);
+
+		assertTrue(DeleteDependencies.compute(original(), local, remote).isEmpty());
+	}
+
+	@Test
+	public void dependsAcrossEveryPairOfSides() {
+		Change deleted = delete(2);
+		Change fromRemote = attribute(Kind.SET, 3, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "a");
+		Change fromBranch = attribute(Kind.SET, 4, EcorePackage.Literals.ENAMED_ELEMENT__NAME, "b");
+		ChangeSet local = changeSet(deleted);
+		ChangeSet remote = changeSet(fromRemote);
+		ChangeSet branch = changeSet(fromBranch);
+		ChangeOrdinals.assign(Arrays.asList(local, remote, branch));
+
+		ImmutableSetMultimap<Object, Integer> dependencies = DeleteDependencies.of(original()).compute(Arrays.asList(local, remote, branch));
+
+		assertEquals(ImmutableSetMultimap.<Object, Integer> of(3, deleted.getOrdinal(), 4, deleted.getOrdinal()), dependencies);
+	}
+}
@@ -0,0 +1,141 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import static org.eclipse.viatra.dse.merge.util.TestModel.ID;
+import static org.eclipse.viatra.dse.merge.util.TestModel.children;
+import static org.eclipse.viatra.dse.merge.util.TestModel.node;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class ElementIndexTest {
+
+	@Test
+	public void findsElementsByNumericIds() {
+		EObject child = node(2);
+		EObject root = node(1, child);
+
+		ElementIndex index = ElementIndex.build(root);
+
+		assertSame(root, index.get(1));
+		assertSame(child, index.get(2L));
+		assertNull(index.get(3));
+		assertNull(index.get("2"));
+	}
+
+	@Test
+	public void referencesNamedIdAreNoIds() {
+		EClass eClass = EcoreFactory.eINSTANCE.createEClass();
+		EReference id = EcoreFactory.eINSTANCE.createEReference();
+		id.setName("id");
+		id.setEType(TestModel.NODE);
+		eClass.getEStructuralFeatures().add(id);
+		TestModel.PACKAGE.getEClassifiers().add(eClass);
+		try {
+			EObject eObject = EcoreUtil.create(eClass);
+			eObject.eSet(id, node(1));
+			ElementIndex index = ElementIndex.build(node(2));
+
+			assertNull(index.idOf(eObject));
+			assertNull(index.idOf(eObject));
+		} finally {
+			TestModel.PACKAGE.getEClassifiers().remove(eClass);
+		}
+	}
+
+	/**
+	 * Removes every other element of a table which has grown several times, so the
+	 * removals have to shift the colliding entries back into their probe sequences.
+	 */
+	@Test
+	public void keepsEntriesFoundAfterRemovals() {
+		EObject root = node(0);
+		ElementIndex index = ElementIndex.attach(root);
+		List<EObject> nodes = Lists.newArrayList();
+		for (int i = 1; i <= 1000; i++) {
+			EObject node = node(i);
+			nodes.add(node);
+			children(root).add(node);
+		}
+		for (int i = 0; i < nodes.size(); i += 2) {
+			children(root).remove(nodes.get(i));
+		}
+
+		for (int i = 0; i < nodes.size(); i++) {
+			if (i % 2 == 0)
+				assertNull(index.get(i + 1));
+			else
+				assertSame(nodes.get(i), index.get(i + 1));
+		}
+	}
+
+	@Test
+	public void removesOnlyTheMappedElement() {
+		EObject first = node(2);
+		EObject root = node(1, first);
+		ElementIndex index = ElementIndex.attach(root);
+		EObject second = node(2);
+		children(root).add(second);
+
+		children(root).remove(first);
+
+		assertSame(second, index.get(2));
+	}
+
+	@Test
+	public void evictsOnlyTheMovedSubtree() {
+		EObject leaf = node(3);
+		EObject moved = node(2, leaf);
+		EObject target = node(4);
+		EObject root = node(1, moved, target);
+		ElementIndex index = ElementIndex.attach(root);
+		assertArrayEquals(new Object[] { 3, 2, 1 }, index.getAncestorIds(3));
+		Object[] targetIds = index.getAncestorIds(4);
+
+		children(target).add(moved);
+
+		assertArrayEquals(new Object[] { 3, 2, 4, 1 }, index.getAncestorIds(3));
+		assertArrayEquals(new Object[] { 2, 4, 1 }, index.getAncestorIds(2));
+		assertSame(targetIds, index.getAncestorIds(4));
+	}
+
+	@Test
+	public void evictsTheSubtreeOfChangedIds() {
+		EObject leaf = node(3);
+		EObject renamed = node(2, leaf);
+		EObject other = node(4);
+		EObject root = node(1, renamed, other);
+		ElementIndex index = ElementIndex.attach(root);
+		assertArrayEquals(new Object[] { 3, 2, 1 }, index.getAncestorIds(3));
+		assertArrayEquals(new Object[] { 2, 1 }, index.getAncestorIds(2));
+		Object[] otherIds = index.getAncestorIds(4);
+
+		renamed.eSet(ID, 20);
+
+		assertArrayEquals(new Object[] { 3, 20, 1 }, index.getAncestorIds(3));
+		assertArrayEquals(new Object[] { 2 }, index.getAncestorIds(2));
+		assertSame(renamed, index.get(20));
+		assertSame(otherIds, index.getAncestorIds(4));
+	}
+
+	@Test
+	public void evictsChainsOfAddedElements() {
+		EObject root = node(1);
+		ElementIndex index = ElementIndex.attach(root);
+		assertArrayEquals(new Object[] { 3 }, index.getAncestorIds(3));
+
+		children(root).add(node(2, node(3)));
+
+		assertArrayEquals(new Object[] { 3, 2, 1 }, index.getAncestorIds(3));
+	}
+}
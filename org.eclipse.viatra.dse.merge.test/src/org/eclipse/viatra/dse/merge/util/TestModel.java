@@ -0,0 +1,67 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EcoreFactory;
+import org.eclipse.emf.ecore.EcorePackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+
+/**
+ * Dynamic metamodel of the tests: nodes with an int "id" attribute, a
+ * containment list of child nodes and a list of referenced nodes.
+ */
+public class TestModel {
+
+	public static final EPackage PACKAGE = EcoreFactory.eINSTANCE.createEPackage();
+	public static final EClass NODE = EcoreFactory.eINSTANCE.createEClass();
+	public static final EAttribute ID = EcoreFactory.eINSTANCE.createEAttribute();
+	public static final EReference CHILDREN = EcoreFactory.eINSTANCE.createEReference();
+	public static final EReference REFS = EcoreFactory.eINSTANCE.createEReference();
+
+	static {
+		PACKAGE.setName("test");
+		PACKAGE.setNsPrefix("test");
+		PACKAGE.setNsURI("http://org.eclipse.viatra.dse.merge/test");
+		NODE.setName("Node");
+		ID.setName("id");
+		ID.setEType(EcorePackage.Literals.EINT);
+		CHILDREN.setName("children");
+		CHILDREN.setEType(NODE);
+		CHILDREN.setContainment(true);
+		CHILDREN.setUpperBound(EReference.UNBOUNDED_MULTIPLICITY);
+		REFS.setName("refs");
+		REFS.setEType(NODE);
+		REFS.setUpperBound(EReference.UNBOUNDED_MULTIPLICITY);
+		NODE.getEStructuralFeatures().add(ID);
+		NODE.getEStructuralFeatures().add(CHILDREN);
+		NODE.getEStructuralFeatures().add(REFS);
+		PACKAGE.getEClassifiers().add(NODE);
+	}
+
+	private TestModel() {
+	}
+
+	public static EObject node(int id, EObject... children) {
+		EObject node = EcoreUtil.create(NODE);
+		node.eSet(ID, id);
+		for (EObject child : children) {
+			children(node).add(child);
+		}
+		return node;
+	}
+
+	@SuppressWarnings("unchecked")
+	public static List<EObject> children(EObject node) {
+		return (List<EObject>) node.eGet(CHILDREN);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static List<EObject> refs(EObject node) {
+		return (List<EObject>) node.eGet(REFS);
+	}
+}
@@ -0,0 +1,72 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.Arrays;
+
+import com.google.common.base.Objects;
+
+/**
+ * Activation code of a change applying match. Codes are created once per pattern,
+ * change and parameter ids by {@link DSEMergeSerializer} and reused in every
+ * state, equality is based on the ordinals and the exact ids of the match
+ * parameters, so the codes are equal in every copy of the scope.
+ */
+public final class ActivationCode {
+
+	private final boolean must;
+	private final int pattern;
+	private final String patternName;
+	private final int change;
+	private final Object[] ids;
+	private final int hash;
+
+	public ActivationCode(boolean must, int pattern, String patternName, int change, Object[] ids) {
+		this.must = must;
+		this.pattern = pattern;
+		this.patternName = patternName;
+		this.change = change;
+		this.ids = ids;
+		this.hash = 31 * (31 * pattern + change) + Arrays.hashCode(ids);
+	}
+
+	public boolean isMust() {
+		return must;
+	}
+
+	public int getPattern() {
+		return pattern;
+	}
+
+	public int getChange() {
+		return change;
+	}
+
+	boolean hasIds(Object[] ids, int length) {
+		if (this.ids.length != length)
+			return false;
+		for (int i = 0; i < length; i++) {
+			if (!Objects.equal(this.ids[i], ids[i]))
+				return false;
+		}
+		return true;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof ActivationCode))
+			return false;
+		ActivationCode other = (ActivationCode) obj;
+		return hash == other.hash && pattern == other.pattern && change == other.change && Arrays.equals(ids, other.ids);
+	}
+
+	@Override
+	public String toString() {
+		return (must ? DSEMergeStrategy.MUST_PREFIX : DSEMergeStrategy.MAY_PREFIX) + "Match|" + patternName + "|#" + change + Arrays.toString(ids);
+	}
+}
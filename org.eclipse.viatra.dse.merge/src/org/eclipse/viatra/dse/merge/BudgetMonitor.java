@@ -0,0 +1,107 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.viatra.dse.merge.DSEMergeReport.StopReason;
+
+import com.google.common.base.Ticker;
+
+/**
+ * Tracks a {@link DSEMergeBudget} during a merge run. Shared by every strategy of
+ * the run; the first reason to stop wins. The time limit counts from
+ * {@link #start()}, so a run waiting for an executor thread keeps its whole budget.
+ */
+final class BudgetMonitor {
+
+	/** The heap is sampled only every so many checks as it is not free to query. */
+	private static final int HEAP_CHECK_INTERVAL = 64;
+	private static final long NOT_STARTED = Long.MIN_VALUE;
+
+	private final DSEMergeBudget budget;
+	private final Ticker ticker;
+	private volatile long startNanos = NOT_STARTED;
+	private final AtomicLong visitedStates = new AtomicLong();
+	private final AtomicLong checks = new AtomicLong();
+	private final AtomicReference<StopReason> stopReason = new AtomicReference<StopReason>();
+
+	BudgetMonitor(DSEMergeBudget budget) {
+		this(budget, Ticker.systemTicker());
+	}
+
+	/**
+	 * Measures the time limit with the given time source instead of the system clock.
+	 */
+	BudgetMonitor(DSEMergeBudget budget, Ticker ticker) {
+		this.budget = budget;
+		this.ticker = ticker;
+	}
+
+	/**
+	 * Starts the clock of the time limit, unless it is started already.
+	 */
+	synchronized void start() {
+		if (startNanos == NOT_STARTED) {
+			startNanos = ticker.read();
+		}
+	}
+
+	void stateVisited() {
+		visitedStates.incrementAndGet();
+	}
+
+	/**
+	 * @return whether the exploration has to stop, either because a limit is hit now
+	 *         or because it was stopped before
+	 */
+	boolean isExceeded() {
+		if (stopReason.get() != null) {
+			return true;
+		}
+		if (budget.getTimeLimitMillis() > 0 && getElapsedMillis() > budget.getTimeLimitMillis()) {
+			return stop(StopReason.TIME_LIMIT);
+		}
+		if (budget.getMaxStates() > 0 && visitedStates.get() >= budget.getMaxStates()) {
+			return stop(StopReason.STATE_LIMIT);
+		}
+		if (budget.getMaxHeapBytes() > 0 && checks.incrementAndGet() % HEAP_CHECK_INTERVAL == 0) {
+			Runtime runtime = Runtime.getRuntime();
+			if (runtime.totalMemory() - runtime.freeMemory() > budget.getMaxHeapBytes()) {
+				return stop(StopReason.HEAP_LIMIT);
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Records the reason of stopping, unless there is one already.
+	 *
+	 * @return true
+	 */
+	boolean stop(StopReason reason) {
+		stopReason.compareAndSet(null, reason);
+		return true;
+	}
+
+	StopReason getStopReason() {
+		return stopReason.get();
+	}
+
+	boolean isStopped() {
+		return stopReason.get() != null;
+	}
+
+	/**
+	 * @return the time since {@link #start()}, or 0 if the run has not started yet
+	 */
+	long getElapsedMillis() {
+		long start = startNanos;
+		return start == NOT_STARTED ? 0 : TimeUnit.NANOSECONDS.toMillis(ticker.read() - start);
+	}
+
+	DSEMergeReport createReport(long solutionCount) {
+		StopReason reason = stopReason.get();
+		return new DSEMergeReport(reason == null ? StopReason.COMPLETED : reason, visitedStates.get(), getElapsedMillis(), solutionCount);
+	}
+}
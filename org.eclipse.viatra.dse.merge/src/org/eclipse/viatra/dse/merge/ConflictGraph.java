@@ -0,0 +1,232 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Kind;
+import org.eclipse.viatra.dse.merge.model.Reference;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+
+import com.google.common.base.Objects;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.primitives.Ints;
+
+/**
+ * Static conflicts between the changes of different sides, computed once per merge.
+ * An edge from change A to change B means that applying A makes B inapplicable.
+ * The edges are stored as adjacency lists in int arrays over the change ordinals.
+ */
+public class ConflictGraph {
+
+	private static final Object[] NO_IDS = new Object[0];
+	private static final int[] EMPTY = new int[0];
+
+	private final int[] offsets;
+	private final int[] targets;
+	private final int[] inDegree;
+	private final Object[][] touchedIds;
+
+	private ConflictGraph(int[] offsets, int[] targets, int[] inDegree, Object[][] touchedIds) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.inDegree = inDegree;
+		this.touchedIds = touchedIds;
+	}
+
+	public static ConflictGraph build(ChangeSet local, ChangeSet remote, ConflictIndex index, int changeCount) {
+		return build(ChangeSets.of(local, remote), index, changeCount);
+	}
+
+	public static ConflictGraph build(List<ChangeSet> changeSets, ConflictIndex index, int changeCount) {
+		int[][] adjacency = new int[changeCount][];
+		Object[][] touchedIds = new Object[changeCount][];
+		int[] sides = new int[changeCount];
+		for (int side = 0; side < changeSets.size(); side++) {
+			collect(changeSets.get(side), side, sides, touchedIds);
+		}
+
+		Change[] changes = new Change[changeCount];
+		for (ChangeSet changeSet : changeSets) {
+			if (changeSet == null)
+				continue;
+			for (Change change : changeSet.getChanges()) {
+				changes[change.getOrdinal()] = change;
+			}
+		}
+		for (Change change : changes) {
+			if (change != null)
+				adjacency[change.getOrdinal()] = conflicts(change, changes, index, sides);
+		}
+
+		int[] offsets = new int[changeCount + 1];
+		int[] inDegree = new int[changeCount];
+		for (int i = 0; i < changeCount; i++) {
+			int degree = adjacency[i] == null ? 0 : adjacency[i].length;
+			offsets[i + 1] = offsets[i] + degree;
+		}
+		int[] targets = new int[offsets[changeCount]];
+		for (int i = 0; i < changeCount; i++) {
+			if (adjacency[i] == null)
+				continue;
+			System.arraycopy(adjacency[i], 0, targets, offsets[i], adjacency[i].length);
+			for (int target : adjacency[i]) {
+				inDegree[target]++;
+			}
+		}
+		return new ConflictGraph(offsets, targets, inDegree, touchedIds);
+	}
+
+	private static void collect(ChangeSet changeSet, int side, int[] sides, Object[][] touchedIds) {
+		if (changeSet == null)
+			return;
+		for (Change change : changeSet.getChanges()) {
+			sides[change.getOrdinal()] = side;
+			touchedIds[change.getOrdinal()] = touchedIds(change);
+			if (change instanceof Create) {
+				for (Attribute attribute : ((Create) change).getAttributes()) {
+					sides[attribute.getOrdinal()] = side;
+					touchedIds[attribute.getOrdinal()] = touchedIds(attribute);
+				}
+			}
+		}
+	}
+
+	/**
+	 * The ids the operations look up in the delete dependencies when applying the change.
+	 */
+	private static Object[] touchedIds(Change change) {
+		Object src = DSEMergeStrategy.getId(change.getSrc());
+		if (change instanceof Reference) {
+			Kind kind = ((Reference) change).getKind();
+			if (kind == Kind.ADD || kind == Kind.SET)
+				return new Object[] { src, DSEMergeStrategy.getId(((Reference) change).getTrg()) };
+			return new Object[] { src };
+		}
+		if (change instanceof Create || change instanceof Attribute)
+			return new Object[] { src };
+		return NO_IDS;
+	}
+
+	private static int[] conflicts(Change change, Change[] changes, ConflictIndex index, int[] sides) {
+		Object src = DSEMergeStrategy.getId(change.getSrc());
+		int[] candidates;
+		if (change instanceof Create) {
+			candidates = index.getCreates(src);
+		} else if (change instanceof Attribute) {
+			candidates = index.getAttributes(src, ((Attribute) change).getFeature());
+		} else if (change instanceof Reference) {
+			Reference reference = (Reference) change;
+			if (reference.getKind() == Kind.ADD || reference.getKind() == Kind.REMOVE) {
+				if (!((EReference) reference.getFeature()).isContainment())
+					return null;
+				candidates = index.getContainments(DSEMergeStrategy.getId(reference.getTrg()));
+			} else {
+				candidates = index.getReferences(src, reference.getFeature());
+			}
+		} else {
+			return null;
+		}
+
+		int side = sides[change.getOrdinal()];
+		List<Integer> result = Lists.newArrayList();
+		for (int candidate : candidates) {
+			Change other = changes[candidate];
+			if (sides[candidate] == side || !conflicts(change, other))
+				continue;
+			result.add(candidate);
+			if (other instanceof Create) {
+				for (Attribute attribute : ((Create) other).getAttributes()) {
+					result.add(attribute.getOrdinal());
+				}
+			}
+		}
+		return result.isEmpty() ? null : Ints.toArray(result);
+	}
+
+	/**
+	 * Whether applying the first change makes the second one inapplicable, given
+	 * that they were found under the same key of the {@link ConflictIndex}.
+	 */
+	private static boolean conflicts(Change applied, Change other) {
+		if (applied instanceof Attribute) {
+			Attribute attribute = (Attribute) applied;
+			switch (attribute.getKind()) {
+			case SET:
+				return true;
+			case ADD:
+			case REMOVE:
+				return Objects.equal(attribute.getValue(), ((Attribute) other).getValue());
+			default:
+				return false;
+			}
+		}
+		if (applied instanceof Reference) {
+			if (((Reference) applied).getKind() == Kind.ADD)
+				return ((Reference) other).getKind() == Kind.ADD;
+			return true;
+		}
+		return applied instanceof Create;
+	}
+
+	/**
+	 * @return the ordinals of the changes which become inapplicable by applying the given one
+	 */
+	public int[] getConflicts(int ordinal) {
+		if (ordinal < 0 || ordinal + 1 >= offsets.length)
+			return EMPTY;
+		return Arrays.copyOfRange(targets, offsets[ordinal], offsets[ordinal + 1]);
+	}
+
+	public int getDegree(int ordinal) {
+		if (ordinal < 0 || ordinal + 1 >= offsets.length)
+			return 0;
+		return offsets[ordinal + 1] - offsets[ordinal];
+	}
+
+	public int getConflict(int ordinal, int i) {
+		return targets[offsets[ordinal] + i];
+	}
+
+	/**
+	 * @return whether the change neither invalidates nor can be invalidated by another change
+	 */
+	public boolean isIndependent(int ordinal) {
+		return getDegree(ordinal) == 0 && (ordinal < 0 || ordinal >= inDegree.length || inDegree[ordinal] == 0);
+	}
+
+	/**
+	 * The ids the operations look up in the delete dependencies when applying the change.
+	 */
+	public Object[] getTouchedIds(int ordinal) {
+		if (ordinal < 0 || ordinal >= touchedIds.length || touchedIds[ordinal] == null)
+			return NO_IDS;
+		return touchedIds[ordinal];
+	}
+
+	/**
+	 * @return the ordinals of the changes which take part in a delete dependency, either
+	 *         as a delete or as a change touching an element the delete depends on
+	 */
+	public BitSet dependentChanges(ImmutableSetMultimap<Object, Integer> deleteDependencies) {
+		BitSet dependent = new BitSet(touchedIds.length);
+		if (deleteDependencies.isEmpty())
+			return dependent;
+		for (Integer delete : deleteDependencies.values()) {
+			dependent.set(delete);
+		}
+		for (int i = 0; i < touchedIds.length; i++) {
+			for (Object id : getTouchedIds(i)) {
+				if (deleteDependencies.containsKey(id))
+					dependent.set(i);
+			}
+		}
+		return dependent;
+	}
+}
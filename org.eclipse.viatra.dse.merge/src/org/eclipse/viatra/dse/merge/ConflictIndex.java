@@ -0,0 +1,153 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Reference;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+
+import com.google.common.collect.Maps;
+
+/**
+ * Immutable index of the changes of every change set of the merge by the keys the operations
+ * use to find conflicting changes: (src id, feature) for attributes and
+ * references, target id for containment references and src id for creates.
+ * Changes are stored by their ordinals. The buckets are collected in growable
+ * buffers and frozen into int arrays once every change is indexed.
+ */
+public class ConflictIndex {
+
+	private static final int[] NONE = new int[0];
+
+	private final Map<EStructuralFeature, Map<Object, int[]>> attributes = Maps.newHashMap();
+	private final Map<EStructuralFeature, Map<Object, int[]>> references = Maps.newHashMap();
+	private final Map<Object, int[]> containments = Maps.newHashMap();
+	private final Map<Object, int[]> creates = Maps.newHashMap();
+
+	public ConflictIndex(ChangeSet local, ChangeSet remote) {
+		this(ChangeSets.of(local, remote));
+	}
+
+	public ConflictIndex(List<ChangeSet> changeSets) {
+		Map<EStructuralFeature, Map<Object, IntBuffer>> attributeBuffers = Maps.newHashMap();
+		Map<EStructuralFeature, Map<Object, IntBuffer>> referenceBuffers = Maps.newHashMap();
+		Map<Object, IntBuffer> containmentBuffers = Maps.newHashMap();
+		Map<Object, IntBuffer> createBuffers = Maps.newHashMap();
+		for (ChangeSet changeSet : changeSets) {
+			if (changeSet == null)
+				continue;
+			for (Change change : changeSet.getChanges()) {
+				Object src = DSEMergeStrategy.getId(change.getSrc());
+				if (change instanceof Create) {
+					put(createBuffers, src, change.getOrdinal());
+				} else if (change instanceof Attribute) {
+					put(featureMap(attributeBuffers, ((Attribute) change).getFeature()), src, change.getOrdinal());
+				} else if (change instanceof Reference) {
+					Reference reference = (Reference) change;
+					put(featureMap(referenceBuffers, reference.getFeature()), src, change.getOrdinal());
+					if (reference.getFeature() instanceof EReference && ((EReference) reference.getFeature()).isContainment()) {
+						put(containmentBuffers, DSEMergeStrategy.getId(reference.getTrg()), change.getOrdinal());
+					}
+				}
+			}
+		}
+		freeze(attributeBuffers, attributes);
+		freeze(referenceBuffers, references);
+		freeze(containmentBuffers, containments);
+		freeze(createBuffers, creates);
+	}
+
+	private static Map<Object, IntBuffer> featureMap(Map<EStructuralFeature, Map<Object, IntBuffer>> map, EStructuralFeature feature) {
+		Map<Object, IntBuffer> byId = map.get(feature);
+		if (byId == null) {
+			byId = Maps.newHashMap();
+			map.put(feature, byId);
+		}
+		return byId;
+	}
+
+	private static void put(Map<Object, IntBuffer> map, Object key, int ordinal) {
+		IntBuffer ordinals = map.get(key);
+		if (ordinals == null) {
+			ordinals = new IntBuffer();
+			map.put(key, ordinals);
+		}
+		ordinals.add(ordinal);
+	}
+
+	private static void freeze(Map<EStructuralFeature, Map<Object, IntBuffer>> buffers, Map<EStructuralFeature, Map<Object, int[]>> frozen) {
+		for (Entry<EStructuralFeature, Map<Object, IntBuffer>> entry : buffers.entrySet()) {
+			Map<Object, int[]> byId = Maps.newHashMap();
+			freeze(entry.getValue(), byId);
+			frozen.put(entry.getKey(), byId);
+		}
+	}
+
+	private static void freeze(Map<Object, IntBuffer> buffers, Map<Object, int[]> frozen) {
+		for (Entry<Object, IntBuffer> entry : buffers.entrySet()) {
+			frozen.put(entry.getKey(), entry.getValue().toArray());
+		}
+	}
+
+	private static int[] get(Map<Object, int[]> map, Object key) {
+		if (map == null)
+			return NONE;
+		int[] ordinals = map.get(key);
+		return ordinals == null ? NONE : ordinals;
+	}
+
+	/**
+	 * @return the ordinals of the attribute changes of the given element and feature
+	 */
+	public int[] getAttributes(Object srcId, EStructuralFeature feature) {
+		return get(attributes.get(feature), srcId);
+	}
+
+	/**
+	 * @return the ordinals of the reference changes of the given element and feature
+	 */
+	public int[] getReferences(Object srcId, EStructuralFeature feature) {
+		return get(references.get(feature), srcId);
+	}
+
+	/**
+	 * @return the ordinals of the containment reference changes pointing to the given element
+	 */
+	public int[] getContainments(Object trgId) {
+		return get(containments, trgId);
+	}
+
+	/**
+	 * @return the ordinals of the creates of the given element
+	 */
+	public int[] getCreates(Object srcId) {
+		return get(creates, srcId);
+	}
+
+	/**
+	 * Growable int list used while the index is built.
+	 */
+	private static final class IntBuffer {
+
+		private int[] values = new int[2];
+		private int size;
+
+		void add(int value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
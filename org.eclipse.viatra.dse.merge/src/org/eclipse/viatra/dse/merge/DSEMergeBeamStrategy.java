@@ -0,0 +1,103 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+import org.eclipse.viatra.dse.base.DesignSpaceManager;
+import org.eclipse.viatra.dse.designspace.api.ITransition;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Beam search over a merge: the states of a depth are scored by the
+ * {@link DSEMergeHeuristic} and only the best <i>width</i> of them are expanded to
+ * the next depth, the others are dropped. Only the transitions of the beam are
+ * kept, so the memory of the search is bounded by the width and the branching. A
+ * wider beam finds better solutions at a higher cost; the search is not exhaustive.
+ * <p>
+ * The time is not linear in the depth. The design space manager fires transitions
+ * from its current state only, so moving from one state of the beam to the next
+ * undoes the trajectory up to their common ancestor and fires the rest of the path
+ * again. Expanding depth <i>d</i> fires O(width * (branching + d)) transitions, and
+ * reaching depth <i>D</i> fires O(width * (branching * D + D^2)) in total.
+ * <p>
+ * The transitions are filtered MUST-first and the interleavings of independent
+ * MUST changes are pruned with the conflict graph like in
+ * {@link DSEMergeStrategy}; states reached on two paths are expanded once.
+ */
+public class DSEMergeBeamStrategy extends DSEMergeBestFirstStrategy {
+
+	private final int width;
+	private final Deque<Node> pending = new ArrayDeque<Node>();
+	private List<Candidate> candidates = Lists.newArrayList();
+
+	/**
+	 * A state of the next depth with its score and the transitions from it.
+	 */
+	private static final class Candidate {
+		final Node node;
+		final double score;
+		final List<Object> transitionIds;
+
+		Candidate(Node node, double score, List<Object> transitionIds) {
+			this.node = node;
+			this.score = score;
+			this.transitionIds = transitionIds;
+		}
+	}
+
+	private static final Comparator<Candidate> BY_SCORE = new Comparator<Candidate>() {
+		@Override
+		public int compare(Candidate c1, Candidate c2) {
+			return Double.compare(c1.score, c2.score);
+		}
+	};
+
+	public DSEMergeBeamStrategy(DSEMergeHeuristic heuristic, int width) {
+		super(heuristic);
+		if (width < 1)
+			throw new IllegalArgumentException("The beam width must be at least 1: " + width);
+		this.width = width;
+	}
+
+	@Override
+	protected Node selectNext() {
+		if (pending.isEmpty()) {
+			nextDepth();
+		}
+		return pending.poll();
+	}
+
+	/**
+	 * Keeps the best candidates and queues their transitions, grouped by source so
+	 * moving between them takes few undos.
+	 */
+	private void nextDepth() {
+		Collections.sort(candidates, BY_SCORE); // stable, ties keep the discovery order
+		List<Candidate> beam = candidates.subList(0, Math.min(width, candidates.size()));
+		for (Candidate candidate : beam) {
+			for (Object transitionId : candidate.transitionIds) {
+				pending.add(createNode(candidate.node, transitionId, candidate.score));
+			}
+		}
+		candidates = Lists.newArrayList();
+	}
+
+	@Override
+	protected void expand(DesignSpaceManager dsm, Node node) {
+		List<Object> transitionIds = Lists.newArrayList();
+		for (ITransition transition : getTransitions(dsm)) {
+			transitionIds.add(transition.getId());
+		}
+		if (!transitionIds.isEmpty()) {
+			candidates.add(new Candidate(node, evaluate(), transitionIds));
+		}
+	}
+
+	public int getWidth() {
+		return width;
+	}
+}
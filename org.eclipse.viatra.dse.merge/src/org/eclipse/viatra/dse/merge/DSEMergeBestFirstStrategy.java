@@ -0,0 +1,195 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.PriorityQueue;
+
+import org.eclipse.viatra.dse.base.DesignSpaceManager;
+import org.eclipse.viatra.dse.base.ThreadContext;
+import org.eclipse.viatra.dse.designspace.api.ITransition;
+import org.eclipse.viatra.dse.merge.util.FilterHelper;
+import org.eclipse.viatra.dse.objectives.Fitness;
+
+/**
+ * Best-first exploration of a merge. The frontier is a priority queue of the
+ * transitions not yet fired, ordered by the {@link DSEMergeHeuristic} score of the
+ * state they start from, then by depth, deeper first. Transitions are queued with
+ * the score of their source and the target is evaluated once it is reached, so
+ * every state is evaluated only once. With a score that includes the cost of the
+ * path this is an A* search.
+ * <p>
+ * The design space manager can only fire transitions from its current state, so
+ * jumping to a frontier transition undoes the trajectory up to the common ancestor
+ * and fires the transitions down from there again. The exploration runs on a
+ * single thread and keeps the MUST-first filtering of {@link DSEMergeStrategy}.
+ */
+public class DSEMergeBestFirstStrategy extends DSEMergeStrategy {
+
+	private final DSEMergeHeuristic heuristic;
+	private final PriorityQueue<Node> frontier = new PriorityQueue<Node>(64, new Comparator<Node>() {
+		@Override
+		public int compare(Node n1, Node n2) {
+			int c = Double.compare(n1.priority, n2.priority);
+			if (c == 0)
+				c = n2.depth - n1.depth;
+			if (c == 0)
+				c = Long.compare(n1.sequence, n2.sequence);
+			return c;
+		}
+	});
+	private final Deque<Node> replay = new ArrayDeque<Node>();
+	private DesignSpaceManager.FilterOptions filterOptions;
+	private Node current;
+	private long sequence = 0;
+
+	/**
+	 * A transition of the explored trajectories, identified by its activation code
+	 * and its parent.
+	 */
+	protected static final class Node {
+		final Node parent;
+		final Object transitionId;
+		final int depth;
+		final double priority;
+		final long sequence;
+
+		Node(Node parent, Object transitionId, double priority, long sequence) {
+			this.parent = parent;
+			this.transitionId = transitionId;
+			this.depth = parent == null ? 0 : parent.depth + 1;
+			this.priority = priority;
+			this.sequence = sequence;
+		}
+
+		boolean isAncestorOf(Node node) {
+			while (node != null && node.depth > depth) {
+				node = node.parent;
+			}
+			return node == this;
+		}
+	}
+
+	public DSEMergeBestFirstStrategy(DSEMergeHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	@Override
+	public void init(ThreadContext context) {
+		super.init(context);
+		filterOptions = new DesignSpaceManager.FilterOptions();
+		filterOptions.nothingIfCut().nothingIfGoal();
+		current = new Node(null, null, 0, sequence++);
+		expand(context.getDesignSpaceManager(), current);
+	}
+
+	@Override
+	public ITransition getNextTransition(boolean lastWasSuccessful) {
+		if (shouldStop()) {
+			return null;
+		}
+		DesignSpaceManager dsm = getThreadContext().getDesignSpaceManager();
+		if (!lastWasSuccessful && current.parent != null) {
+			current = current.parent; // the last transition was not fired
+			replay.clear();
+		}
+
+		while (true) {
+			if (replay.isEmpty()) {
+				Node next = selectNext();
+				if (next == null) {
+					return null;
+				}
+				while (!current.isAncestorOf(next.parent)) {
+					if (!dsm.undoLastTransformation()) {
+						return null;
+					}
+					current = current.parent;
+				}
+				for (Node node = next; node != current; node = node.parent) {
+					replay.push(node);
+				}
+			}
+
+			Node node = replay.pop();
+			ITransition transition = findTransition(dsm, node.transitionId);
+			if (transition != null) {
+				current = node;
+				if (getTracer() != null && replay.isEmpty()) {
+					getTracer().transitionSelected(transition.getFiredFrom().getId(), transition.getId(), node.depth - 1);
+				}
+				return transition;
+			}
+			replay.clear(); // the activation disappeared, drop the branch
+			if (shouldStop()) {
+				return null;
+			}
+		}
+	}
+
+	@Override
+	public void newStateIsProcessed(boolean isAlreadyTraversed, Fitness fitness, boolean constraintsNotSatisfied) {
+		if (!replay.isEmpty()) {
+			return; // on the way to the next frontier transition
+		}
+		stateVisited();
+		if (isAlreadyTraversed) {
+			return;
+		}
+		DesignSpaceManager dsm = getThreadContext().getDesignSpaceManager();
+		if (fitness.isSatisifiesHardObjectives()) {
+			reportSolution(dsm);
+			return;
+		}
+		expand(dsm, current);
+	}
+
+	/**
+	 * @return the frontier transition to fire next, or null if the exploration is over
+	 */
+	protected Node selectNext() {
+		return frontier.poll();
+	}
+
+	/**
+	 * Called with the node of every new state which is not a goal, while the design
+	 * space manager is in that state.
+	 */
+	protected void expand(DesignSpaceManager dsm, Node node) {
+		double priority = evaluate();
+		for (ITransition transition : getTransitions(dsm)) {
+			frontier.add(createNode(node, transition.getId(), priority));
+		}
+	}
+
+	protected double evaluate() {
+		return heuristic.evaluate(getScopeAdapter().getState(), getScopeAdapter());
+	}
+
+	/**
+	 * @return the transitions of the current state to explore
+	 */
+	protected Iterable<? extends ITransition> getTransitions(DesignSpaceManager dsm) {
+		return restrictTransitions(FilterHelper.filterEmptyTransitions(dsm.getTransitionsFromCurrentState(filterOptions)));
+	}
+
+	protected Node createNode(Node parent, Object transitionId, double priority) {
+		return new Node(parent, transitionId, priority, sequence++);
+	}
+
+	private ITransition findTransition(DesignSpaceManager dsm, Object transitionId) {
+		for (ITransition transition : dsm.getCurrentState().getOutgoingTransitions()) {
+			if (transitionId.equals(transition.getId())) {
+				return transition;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of transitions waiting in the frontier
+	 */
+	public int getFrontierSize() {
+		return frontier.size();
+	}
+}
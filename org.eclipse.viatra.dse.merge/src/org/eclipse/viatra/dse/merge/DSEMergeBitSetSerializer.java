@@ -0,0 +1,24 @@
+package org.eclipse.viatra.dse.merge;
+
+import org.eclipse.viatra.dse.merge.util.PatternOrdinals;
+
+/**
+ * State coder which returns the {@link MergeState.Code} of the bit set view of
+ * the scope, so creating a state code costs a copy of the bit set words.
+ */
+public class DSEMergeBitSetSerializer extends DSEMergeSerializer {
+
+	public DSEMergeBitSetSerializer() {
+		this(new PatternOrdinals());
+	}
+
+	public DSEMergeBitSetSerializer(PatternOrdinals patternOrdinals) {
+		super(patternOrdinals);
+	}
+
+	@Override
+	public Object createStateCode() {
+		return DSEMergeScopeAdapter.get(getScope()).getState().createCode();
+	}
+
+}
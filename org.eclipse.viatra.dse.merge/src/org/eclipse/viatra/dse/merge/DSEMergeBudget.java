@@ -0,0 +1,53 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits of a merge exploration. A limit which is not positive is not checked.
+ */
+public class DSEMergeBudget {
+
+	private long timeLimitMillis = 0;
+	private long maxStates = 0;
+	private long maxHeapBytes = 0;
+
+	public static DSEMergeBudget unlimited() {
+		return new DSEMergeBudget();
+	}
+
+	/**
+	 * Wall-clock time of the whole merge, including every cluster.
+	 */
+	public DSEMergeBudget withTimeLimit(long duration, TimeUnit unit) {
+		this.timeLimitMillis = unit.toMillis(duration);
+		return this;
+	}
+
+	/**
+	 * Number of states processed by all exploration threads.
+	 */
+	public DSEMergeBudget withMaxStates(long maxStates) {
+		this.maxStates = maxStates;
+		return this;
+	}
+
+	/**
+	 * Used heap of the JVM, as estimated from {@link Runtime}.
+	 */
+	public DSEMergeBudget withMaxHeap(long bytes) {
+		this.maxHeapBytes = bytes;
+		return this;
+	}
+
+	public long getTimeLimitMillis() {
+		return timeLimitMillis;
+	}
+
+	public long getMaxStates() {
+		return maxStates;
+	}
+
+	public long getMaxHeapBytes() {
+		return maxHeapBytes;
+	}
+}
@@ -0,0 +1,91 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.BitSet;
+import java.util.List;
+
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.util.ChangeOrdinals;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+
+import com.google.common.collect.ImmutableSetMultimap;
+
+/**
+ * Data of a single merge which is shared by all threads of its exploration and
+ * by the solutions. Changes are referred by their ordinal, so the same context
+ * is valid for every copy of the merge scope. Each copy is bound to the context
+ * with a {@link DSEMergeScopeAdapter}.
+ */
+public class DSEMergeContext {
+
+	private final int changeCount;
+	private final ConflictIndex conflictIndex;
+	private final ConflictGraph conflictGraph;
+	private volatile ImmutableSetMultimap<Object, Integer> deleteDependencies;
+	private volatile BitSet dependentChanges = new BitSet();
+
+	/**
+	 * Creates the context of the given change sets, assigning the ordinals of the
+	 * changes if they do not have them yet.
+	 */
+	public DSEMergeContext(ChangeSet local, ChangeSet remote) {
+		this(ChangeSets.of(local, remote));
+	}
+
+	/**
+	 * Creates the context of the given sides, see {@link ChangeSets}.
+	 */
+	public DSEMergeContext(List<ChangeSet> changeSets) {
+		this.changeCount = ChangeOrdinals.ensure(changeSets);
+		this.conflictIndex = new ConflictIndex(changeSets);
+		this.conflictGraph = ConflictGraph.build(changeSets, conflictIndex, changeCount);
+	}
+
+	public int getChangeCount() {
+		return changeCount;
+	}
+
+	public ConflictIndex getConflictIndex() {
+		return conflictIndex;
+	}
+
+	public ConflictGraph getConflictGraph() {
+		return conflictGraph;
+	}
+
+	/**
+	 * @return whether the change commutes with every other change, i.e. it has no
+	 *         conflicts and takes no part in delete dependencies
+	 */
+	public boolean isIndependent(int ordinal) {
+		return conflictGraph.isIndependent(ordinal) && !dependentChanges.get(ordinal);
+	}
+
+	/**
+	 * Maps the id of an element to the ordinals of the deletes which become
+	 * inapplicable once a change touches the element.
+	 */
+	public ImmutableSetMultimap<Object, Integer> getDeleteDependencies() {
+		ImmutableSetMultimap<Object, Integer> dependencies = deleteDependencies;
+		return dependencies == null ? ImmutableSetMultimap.<Object, Integer>of() : dependencies;
+	}
+
+	public boolean hasDeleteDependencies() {
+		return deleteDependencies != null;
+	}
+
+	public void setDeleteDependencies(ImmutableSetMultimap<Object, Integer> deleteDependencies) {
+		this.dependentChanges = conflictGraph.dependentChanges(deleteDependencies);
+		this.deleteDependencies = deleteDependencies;
+	}
+
+	public DSEMergeScopeAdapter attach(DSEMergeScope scope) {
+		DSEMergeScopeAdapter adapter = DSEMergeScopeAdapter.find(scope);
+		if (adapter != null) {
+			scope.eAdapters().remove(adapter);
+		}
+		adapter = new DSEMergeScopeAdapter(this);
+		scope.eAdapters().add(adapter);
+		return adapter;
+	}
+}
@@ -0,0 +1,63 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.util.ChangeHasher;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+import org.eclipse.viatra.dse.merge.util.PatternOrdinals;
+
+/**
+ * State coder which produces a {@link StateFingerprint} from the contents of the
+ * change sets of the merge instead of building a string for every state.
+ * <p>
+ * If a map of already seen codes is given, every fingerprint is verified against
+ * the string based state code of {@link DSEMergeSerializer}. This is meant for
+ * debugging only.
+ */
+public class DSEMergeFingerprintSerializer extends DSEMergeSerializer {
+
+	private final ConcurrentMap<StateFingerprint, String> checkedCodes;
+	private final Logger logger = Logger.getLogger(getClass());
+
+	public DSEMergeFingerprintSerializer() {
+		this(new PatternOrdinals(), null);
+	}
+
+	public DSEMergeFingerprintSerializer(PatternOrdinals patternOrdinals, ConcurrentMap<StateFingerprint, String> checkedCodes) {
+		super(patternOrdinals);
+		this.checkedCodes = checkedCodes;
+	}
+
+	@Override
+	public Object createStateCode() {
+		long high = 0;
+		long low = 0;
+		List<ChangeSet> changeSets = ChangeSets.of(getScope());
+		for (int side = 0; side < changeSets.size(); side++) {
+			if (changeSets.get(side) == null)
+				continue;
+			for (Change change : changeSets.get(side).getChanges()) {
+				high += ChangeHasher.hash(change, side, ChangeHasher.SEED_HIGH);
+				low += ChangeHasher.hash(change, side, ChangeHasher.SEED_LOW);
+			}
+		}
+		return check(new StateFingerprint(high, low));
+	}
+
+	protected StateFingerprint check(StateFingerprint fingerprint) {
+		if (checkedCodes == null)
+			return fingerprint;
+
+		String code = (String) super.createStateCode();
+		String previous = checkedCodes.putIfAbsent(fingerprint, code);
+		if (previous != null && !previous.equals(code)) {
+			logger.error("State fingerprint collision on " + fingerprint + ":\n" + previous + "\n" + code);
+		}
+		return fingerprint;
+	}
+
+}
@@ -0,0 +1,17 @@
+package org.eclipse.viatra.dse.merge;
+
+/**
+ * Scores the states of a merge for {@link DSEMergeBestFirstStrategy}. The score
+ * stands for the whole state, the cost of the changes applied and lost so far plus
+ * the estimate for the remaining ones; the lower the better. See
+ * {@link DSEMergeHeuristics} for the common ones.
+ */
+public interface DSEMergeHeuristic {
+
+	/**
+	 * Called once for every new state reached by the exploration, possibly from many
+	 * threads at the same time.
+	 */
+	double evaluate(MergeState state, DSEMergeScopeAdapter scope);
+
+}
@@ -0,0 +1,124 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.BitSet;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.Delete;
+import org.eclipse.viatra.dse.merge.model.Priority;
+
+import com.google.common.collect.MapMaker;
+
+/**
+ * Common {@link DSEMergeHeuristic}s. They count changes with word level operations
+ * on the {@link MergeState}, using a mask of the relevant ordinals which is built
+ * once per merge.
+ */
+public final class DSEMergeHeuristics {
+
+	private DSEMergeHeuristics() {
+	}
+
+	/**
+	 * Prefers the states which lost the fewest MAY changes, i.e. disabled them
+	 * without applying them, so the solutions found first apply the most MAY changes.
+	 */
+	public static DSEMergeHeuristic mostMayChanges() {
+		return new MaskHeuristic() {
+			@Override
+			protected boolean accept(Change change) {
+				return change.getPriority() != Priority.MUST;
+			}
+
+			@Override
+			protected double evaluate(MergeState state, BitSet mask) {
+				BitSet lost = (BitSet) mask.clone();
+				lost.andNot(state.getApplied());
+				lost.andNot(state.getExecutable());
+				return lost.cardinality();
+			}
+		};
+	}
+
+	/**
+	 * Prefers the states which applied the fewest deletes.
+	 */
+	public static DSEMergeHeuristic fewestDeletes() {
+		return new MaskHeuristic() {
+			@Override
+			protected boolean accept(Change change) {
+				return change instanceof Delete;
+			}
+
+			@Override
+			protected double evaluate(MergeState state, BitSet mask) {
+				BitSet applied = state.getApplied();
+				applied.and(mask);
+				return applied.cardinality();
+			}
+		};
+	}
+
+	/**
+	 * Prefers the states with the fewest executable changes left, which leads to
+	 * solutions in few steps.
+	 */
+	public static DSEMergeHeuristic fewestRemainingChanges() {
+		return new DSEMergeHeuristic() {
+			@Override
+			public double evaluate(MergeState state, DSEMergeScopeAdapter scope) {
+				return state.getExecutableCount();
+			}
+		};
+	}
+
+	/**
+	 * Weighted sum of heuristics.
+	 */
+	public static DSEMergeHeuristic sum(final double[] weights, final DSEMergeHeuristic... heuristics) {
+		if (weights.length != heuristics.length)
+			throw new IllegalArgumentException("There must be a weight for every heuristic");
+		return new DSEMergeHeuristic() {
+			@Override
+			public double evaluate(MergeState state, DSEMergeScopeAdapter scope) {
+				double score = 0;
+				for (int i = 0; i < heuristics.length; i++) {
+					score += weights[i] * heuristics[i].evaluate(state, scope);
+				}
+				return score;
+			}
+		};
+	}
+
+	private abstract static class MaskHeuristic implements DSEMergeHeuristic {
+
+		/** The heuristic may be shared by concurrent merges, each with its own mask. */
+		private final ConcurrentMap<DSEMergeContext, BitSet> masks = new MapMaker().weakKeys().makeMap();
+
+		@Override
+		public double evaluate(MergeState state, DSEMergeScopeAdapter scope) {
+			return evaluate(state, getMask(scope));
+		}
+
+		private BitSet getMask(DSEMergeScopeAdapter scope) {
+			DSEMergeContext context = scope.getContext();
+			BitSet mask = masks.get(context);
+			if (mask == null) {
+				BitSet ordinals = new BitSet();
+				for (int ordinal = 0; ordinal < context.getChangeCount(); ordinal++) {
+					Change change = scope.getChange(ordinal);
+					if (change != null && accept(change))
+						ordinals.set(ordinal);
+				}
+				mask = masks.putIfAbsent(context, ordinals);
+				if (mask == null)
+					mask = ordinals;
+			}
+			return mask;
+		}
+
+		protected abstract boolean accept(Change change);
+
+		protected abstract double evaluate(MergeState state, BitSet mask);
+	}
+}
@@ -0,0 +1,164 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.Notifier;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.ModelPackage;
+import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.util.ChangeHasher;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+import org.eclipse.viatra.dse.merge.util.PatternOrdinals;
+
+/**
+ * Fingerprint state coder which keeps the sum of the change hashes up to date
+ * from EMF notifications, so creating a state code costs O(1) and applying an
+ * operation costs O(changes touched by it). The undo of the
+ * {@link org.eclipse.viatra.dse.base.DesignSpaceManager} is handled the same way,
+ * as it fires the inverse notifications.
+ * <p>
+ * The produced fingerprints are equal to the ones of {@link DSEMergeFingerprintSerializer}.
+ */
+public class DSEMergeIncrementalSerializer extends DSEMergeFingerprintSerializer {
+
+	private long high;
+	private long low;
+
+	public DSEMergeIncrementalSerializer() {
+		this(new PatternOrdinals(), null);
+	}
+
+	public DSEMergeIncrementalSerializer(PatternOrdinals patternOrdinals, ConcurrentMap<StateFingerprint, String> checkedCodes) {
+		super(patternOrdinals, checkedCodes);
+	}
+
+	@Override
+	public void init(Notifier notifier) {
+		super.init(notifier);
+		DSEMergeScope scope = getScope();
+		if (scope == null)
+			return;
+		high = 0;
+		low = 0;
+		List<ChangeSet> changeSets = ChangeSets.of(scope);
+		for (int side = 0; side < changeSets.size(); side++) {
+			watch(changeSets.get(side), side);
+		}
+	}
+
+	@Override
+	public Object createStateCode() {
+		return check(new StateFingerprint(high, low));
+	}
+
+	private void watch(ChangeSet changeSet, int side) {
+		if (changeSet == null)
+			return;
+		changeSet.eAdapters().add(new ChangeSetAdapter(side));
+		for (Change change : changeSet.getChanges()) {
+			added(change, side);
+		}
+	}
+
+	private void added(Change change, int side) {
+		ChangeAdapter adapter = new ChangeAdapter(side);
+		adapter.rehash(change);
+		change.eAdapters().add(adapter);
+	}
+
+	private void removed(Change change) {
+		for (Adapter adapter : change.eAdapters()) {
+			if (adapter instanceof ChangeAdapter && ((ChangeAdapter) adapter).getOwner() == this) {
+				((ChangeAdapter) adapter).clear();
+				change.eAdapters().remove(adapter);
+				return;
+			}
+		}
+	}
+
+	private class ChangeSetAdapter extends AdapterImpl {
+
+		private final int side;
+
+		public ChangeSetAdapter(int side) {
+			this.side = side;
+		}
+
+		@Override
+		public void notifyChanged(Notification msg) {
+			if (msg.isTouch() || msg.getFeature() != ModelPackage.Literals.CHANGE_SET__CHANGES)
+				return;
+
+			switch (msg.getEventType()) {
+			case Notification.ADD:
+				added((Change) msg.getNewValue(), side);
+				break;
+			case Notification.ADD_MANY:
+				for (Object o : (Collection<?>) msg.getNewValue()) {
+					added((Change) o, side);
+				}
+				break;
+			case Notification.REMOVE:
+				removed((Change) msg.getOldValue());
+				break;
+			case Notification.REMOVE_MANY:
+				for (Object o : (Collection<?>) msg.getOldValue()) {
+					removed((Change) o);
+				}
+				break;
+			case Notification.SET:
+				if (msg.getOldValue() != null)
+					removed((Change) msg.getOldValue());
+				if (msg.getNewValue() != null)
+					added((Change) msg.getNewValue(), side);
+				break;
+			default:
+				// moves do not change the fingerprint
+				break;
+			}
+		}
+	}
+
+	private class ChangeAdapter extends AdapterImpl {
+
+		private final int side;
+		private long changeHigh;
+		private long changeLow;
+
+		public ChangeAdapter(int side) {
+			this.side = side;
+		}
+
+		public DSEMergeIncrementalSerializer getOwner() {
+			return DSEMergeIncrementalSerializer.this;
+		}
+
+		public void rehash(Change change) {
+			clear();
+			changeHigh = ChangeHasher.hash(change, side, ChangeHasher.SEED_HIGH);
+			changeLow = ChangeHasher.hash(change, side, ChangeHasher.SEED_LOW);
+			high += changeHigh;
+			low += changeLow;
+		}
+
+		public void clear() {
+			high -= changeHigh;
+			low -= changeLow;
+			changeHigh = 0;
+			changeLow = 0;
+		}
+
+		@Override
+		public void notifyChanged(Notification msg) {
+			if (msg.isTouch())
+				return;
+			rehash((Change) msg.getNotifier());
+		}
+	}
+}
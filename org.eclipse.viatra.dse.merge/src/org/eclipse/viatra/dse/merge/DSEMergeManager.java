@@ -1,13 +1,21 @@
 package org.eclipse.viatra.dse.merge;
 
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 
-import org.apache.log4j.BasicConfigurator;
-import org.apache.log4j.Level;
-import org.apache.log4j.Logger;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.change.ChangeDescription;
+import org.eclipse.emf.ecore.change.util.ChangeRecorder;
 import org.eclipse.incquery.runtime.api.IMatchProcessor;
 import org.eclipse.incquery.runtime.api.IPatternMatch;
 import org.eclipse.incquery.runtime.api.IQuerySpecification;
@@ -16,7 +24,8 @@ import org.eclipse.incquery.runtime.exception.IncQueryException;
 import org.eclipse.viatra.dse.api.DSETransformationRule;
 import org.eclipse.viatra.dse.api.DesignSpaceExplorer;
 import org.eclipse.viatra.dse.api.SolutionTrajectory;
-import org.eclipse.viatra.dse.base.DesignSpaceManager;
+import org.eclipse.viatra.dse.merge.DSEMergeReport.StopReason;
+import org.eclipse.viatra.dse.merge.model.Change;
 import org.eclipse.viatra.dse.merge.model.ChangeSet;
 import org.eclipse.viatra.dse.merge.model.ModelPackage;
 import org.eclipse.viatra.dse.merge.queries.ExecutableDeleteChangeMatch;
@@ -25,20 +34,44 @@ import org.eclipse.viatra.dse.merge.queries.util.ExecutableDeleteChangeQuerySpec
 import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
 import org.eclipse.viatra.dse.merge.scope.ScopeFactory;
 import org.eclipse.viatra.dse.merge.scope.ScopePackage;
+import org.eclipse.viatra.dse.merge.util.ChangeClusters;
+import org.eclipse.viatra.dse.merge.util.ChangeOrdinals;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+import org.eclipse.viatra.dse.merge.util.DeleteDependencies;
 import org.eclipse.viatra.dse.objectives.impl.ModelQueriesHardObjective;
 import org.eclipse.viatra.dse.objectives.impl.ModelQueryType;
 import org.eclipse.viatra.dse.util.EMFHelper;
 
+import com.google.common.base.Function;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Lists;
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListenableFutureTask;
+import com.google.common.util.concurrent.MoreExecutors;
 
 public class DSEMergeManager {
 
 	private ChangeSet local;
 	private ChangeSet remote;
+	private List<ChangeSet> branches;
 	private EObject original; 
 	private DSEMergeScope scope;
-	private DesignSpaceExplorer dse;
+	private DSEMergeContext context;
+	private boolean decompose = false;
+	private final ConcurrentMap<DSEMergeScope, Solution> openSolutions = new MapMaker().weakKeys().makeMap();
+	private DSEMergeBudget budget = DSEMergeBudget.unlimited();
+	private volatile DSEMergeReport lastReport;
+	private List<DSETransformationRule<?,?>> preparedRules;
+	private DSEMergeTracer tracer;
+	private DSEMergeHeuristic heuristic;
+	private int beamWidth = 0;
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+	private ThreadFactory threadFactory = Executors.defaultThreadFactory();
+	private Executor executor;
 	private EPackage metamodel;
+	private DSEMergeSerializerFactory serializerFactory = new DSEMergeSerializerFactory();
 	
 	private Collection<DSETransformationRule<?,?>> rules;
 	private Collection<IQuerySpecification<?>> objectives;
@@ -51,6 +84,9 @@ public class DSEMergeManager {
 	public ChangeSet getRemote() {
 		return remote;
 	}
+	public List<ChangeSet> getBranches() {
+		return branches;
+	}
 	public EObject getOriginal() {
 		return original;
 	}
@@ -67,72 +103,384 @@ public class DSEMergeManager {
 		this.objectives = objectives;
 	}
 	
+	/**
+	 * Whether the changes are partitioned into independent clusters which are
+	 * explored separately. Disabled by default.
+	 * <p>
+	 * The solutions of a decomposed run are the combinations of the cluster
+	 * solutions. If a limit stops the run before the last cluster is explored, no
+	 * solution is returned and the report tells the reason.
+	 */
+	public void setDecompose(boolean decompose) {
+		this.decompose = decompose;
+	}
+	
+	/**
+	 * Limits the following runs of the merge. When a limit is hit the runs return the
+	 * solutions found so far, see {@link #getLastReport()}.
+	 */
+	public void setBudget(DSEMergeBudget budget) {
+		this.budget = budget;
+	}
+	
+	/**
+	 * @return the report of the last finished run, or null if none has finished yet
+	 */
+	public DSEMergeReport getLastReport() {
+		return lastReport;
+	}
+	
+	/**
+	 * Receives the trace events of the following runs, see {@link Log4jMergeTracer}.
+	 * No events are created without a tracer.
+	 */
+	public void setTracer(DSEMergeTracer tracer) {
+		this.tracer = tracer;
+	}
+	
+	/**
+	 * Explores the merge best-first along the heuristic with
+	 * {@link DSEMergeBestFirstStrategy} instead of the exhaustive depth-first search.
+	 * Set null to explore exhaustively again.
+	 */
+	public void setHeuristic(DSEMergeHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+	
+	/**
+	 * Explores the merge with a {@link DSEMergeBeamStrategy} of the given width along
+	 * the heuristic, or {@link DSEMergeHeuristics#mostMayChanges()} if none is set.
+	 * Set 0 to turn beam search off.
+	 */
+	public void setBeamWidth(int beamWidth) {
+		if (beamWidth < 0)
+			throw new IllegalArgumentException("The beam width must not be negative: " + beamWidth);
+		this.beamWidth = beamWidth;
+	}
+	
+	/**
+	 * Maximal number of exploration threads of a run. Defaults to the number of
+	 * available processors.
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("At least one thread is needed: " + threadCount);
+		this.threadCount = threadCount;
+	}
+	
+	/**
+	 * Creates the threads of {@link #startAsync(SolutionListener, int)} when no
+	 * executor is set.
+	 */
+	public void setThreadFactory(ThreadFactory threadFactory) {
+		this.threadFactory = threadFactory;
+	}
+	
+	/**
+	 * Runs {@link #startAsync(SolutionListener, int)} on the given executor, e.g. a
+	 * pool shared by many merges.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+	
+	public void setSerializerFactory(DSEMergeSerializerFactory serializerFactory) {
+		this.serializerFactory = serializerFactory;
+	}
+	
 	public void setId2EObject(IQuerySpecification<?> querySpecification) {
 		this.id2eobject = (IQuerySpecification<IncQueryMatcher<IPatternMatch>>) querySpecification;
 	}
 	
-	private DSEMergeManager(EObject original, ChangeSet local, ChangeSet remote) {
+	private DSEMergeManager(EObject original, List<ChangeSet> changeSets, DeleteDependencies deleteDependencies) {
+		if (changeSets.size() < 2)
+			throw new IllegalArgumentException("A merge needs at least two change sets: " + changeSets.size());
 		this.original = original;
-		this.local = local;
-		this.remote = remote;
+		this.local = changeSets.get(0);
+		this.remote = changeSets.get(1);
+		this.branches = ImmutableList.copyOf(changeSets.subList(2, changeSets.size()));
+		
+		ChangeOrdinals.assign(changeSets);
+		context = new DSEMergeContext(changeSets);
 		
 		scope = ScopeFactory.eINSTANCE.createDSEMergeScope();
 		scope.setRemote(remote);
 		scope.setLocal(local);
+		scope.getBranches().addAll(branches);
 		scope.setOrigin(original);	
 		scope.setCemetery(ScopeFactory.eINSTANCE.createCemetery());
-		
-		dse = new DesignSpaceExplorer();
+		context.attach(scope);
+		context.setDeleteDependencies(deleteDependencies.compute(changeSets));
 	}
 	
 	public static DSEMergeManager create(EObject original, ChangeSet local, ChangeSet remote) {
-		return new DSEMergeManager(original, local, remote);
+		return create(original, ChangeSets.of(local, remote));
+	}
+	
+	/**
+	 * Creates an N-way merge: the first change set is the local one, the second the
+	 * remote one and the rest are further branches. All of them are resolved by a
+	 * single exploration.
+	 */
+	public static DSEMergeManager create(EObject original, List<ChangeSet> changeSets) {
+		return new DSEMergeManager(original, changeSets, DeleteDependencies.of(original));
+	}
+	
+	/**
+	 * Creates a manager whose delete dependencies are computed with an index of the
+	 * original model, or of a copy of it, which is shared by several merges.
+	 */
+	static DSEMergeManager create(EObject original, ChangeSet local, ChangeSet remote, DeleteDependencies deleteDependencies) {
+		return new DSEMergeManager(original, ChangeSets.of(local, remote), deleteDependencies);
 	}
 	
 	public Collection<Solution> start() {
-		BasicConfigurator.configure();
-		Logger.getRootLogger().setLevel(Level.ERROR);
-		Logger.getLogger(DSEMergeStrategy.class).setLevel(Level.DEBUG);
-		Logger.getLogger(DesignSpaceManager.class).setLevel(Level.DEBUG);	
+		return Lists.newArrayList(startStreaming());
+	}
+	
+	/**
+	 * Runs the exploration and returns the merge solutions lazily: the handles are
+	 * created as the iterator advances and none of them copies the model until its
+	 * scope is requested.
+	 */
+	public Iterator<Solution> startStreaming() {
+		return new Exploration(null, 0).run();
+	}
+	
+	/**
+	 * Starts the exploration on the executor of the manager, or on a new thread of its
+	 * thread factory if no executor is set. The listener is notified from the
+	 * exploration threads as soon as a solution is found, and the exploration stops
+	 * after <code>maxSolutions</code> solutions if it is positive. Cancelling the
+	 * returned future stops the exploration as well.
+	 * <p>
+	 * The solutions of a run share a copy of the scope made before the exploration,
+	 * so they can be opened while the run goes on.
+	 * 
+	 * @return the future of the solutions passed to the listener
+	 */
+	public ListenableFuture<Collection<Solution>> startAsync(SolutionListener listener, int maxSolutions) {
+		final Exploration exploration = new Exploration(listener, maxSolutions);
+		final ListenableFutureTask<Collection<Solution>> future = ListenableFutureTask.create(new Callable<Collection<Solution>>() {
+			@Override
+			public Collection<Solution> call() throws Exception {
+				return Lists.newArrayList(exploration.run());
+			}
+		});
+		if (executor != null) {
+			executor.execute(future);
+		} else {
+			ExecutorService ownExecutor = Executors.newSingleThreadExecutor(threadFactory);
+			ownExecutor.execute(future);
+			ownExecutor.shutdown();
+		}
+		future.addListener(new Runnable() {
+			@Override
+			public void run() {
+				if (future.isCancelled()) {
+					exploration.stop(StopReason.CANCELLED);
+				}
+			}
+		}, MoreExecutors.sameThreadExecutor());
+		return future;
+	}
+	
+	private void retainChanges(ChangeSet changeSet, BitSet ordinals) {
+		if (changeSet == null)
+			return;
+		for (Change change : Lists.newArrayList(changeSet.getChanges())) {
+			if (!ordinals.get(change.getOrdinal())) {
+				changeSet.getChanges().remove(change);
+			}
+		}
+	}
+	
+	/**
+	 * Uses the given rules, which already contain the rules of the merge itself,
+	 * instead of creating them for every run.
+	 */
+	void setPreparedRules(List<DSETransformationRule<?,?>> preparedRules) {
+		this.preparedRules = preparedRules;
+	}
+	
+	private List<DSETransformationRule<?,?>> createRules() {
+		if (preparedRules != null) {
+			return preparedRules;
+		}
+		return createRules(rules, id2eobject);
+	}
+	
+	static List<DSETransformationRule<?,?>> createRules(Collection<DSETransformationRule<?,?>> rules, IQuerySpecification<IncQueryMatcher<IPatternMatch>> id2eobject) {
+		List<DSETransformationRule<?,?>> transformationRules = Lists.newArrayList(rules);
+		try {
+			transformationRules.add(new DSETransformationRule<ExecutableDeleteChangeMatch, ExecutableDeleteChangeMatcher>(ExecutableDeleteChangeQuerySpecification.instance(), new DefaultMatchProcessor<ExecutableDeleteChangeMatch>()));
+			transformationRules.add(new DSETransformationRule<IPatternMatch, IncQueryMatcher<IPatternMatch>>(id2eobject, new DefaultMatchProcessor<IPatternMatch>()));
+		} catch (IncQueryException e) {
+			e.printStackTrace();
+		}
+		return transformationRules;
+	}
+	
+	/**
+	 * A single run of the merge. The clusters are explored one after the other and the
+	 * solutions of the merge are the combinations of one trajectory per cluster, so they
+	 * are reported while the last cluster is explored.
+	 */
+	private class Exploration implements DSEMergeStrategy.TrajectoryListener {
 		
-		dse.addMetaModelPackage(metamodel);
-		dse.addMetaModelPackage(ScopePackage.eINSTANCE);
-		dse.addMetaModelPackage(ModelPackage.eINSTANCE);
+		private final SolutionListener listener;
+		private final int maxSolutions;
+		private final List<DSETransformationRule<?,?>> transformationRules = createRules();
+		private final List<List<SolutionTrajectory>> clusters = Lists.newArrayList();
+		private final List<Solution> solutions = Lists.newArrayList();
+		private List<SolutionTrajectory> trajectories;
+		private DSEMergeScope solutionBase;
+		private final BudgetMonitor monitor = new BudgetMonitor(budget);
+		private boolean last;
+		private volatile DSEMergeStrategy strategy;
 		
-		dse.setInitialModel(scope);
-		dse.setStateCoderFactory(new DSEMergeSerializerFactory());
+		public Exploration(SolutionListener listener, int maxSolutions) {
+			this.listener = listener;
+			this.maxSolutions = maxSolutions;
+		}
 		
-		ModelQueriesHardObjective modelQueriesHardObjective = new ModelQueriesHardObjective();
-		for (IQuerySpecification<?> objective : objectives) {
-			modelQueriesHardObjective.withConstraint(objective);
+		public Iterator<Solution> run() {
+			monitor.start();
+			// the exploration leaves the scope wherever it stops, so the solutions need their own base
+			solutionBase = (DSEMergeScope) EMFHelper.clone(scope);
+			context.attach(solutionBase);
+			List<BitSet> partition = decompose ? ChangeClusters.compute(ChangeSets.of(scope), context.getChangeCount(), context.getDeleteDependencies()) : null;
+			if (partition == null || partition.size() <= 1) {
+				last = true;
+				explore(scope, context);
+			} else {
+				for (int i = 0; i < partition.size() && !monitor.isStopped(); i++) {
+					BitSet cluster = partition.get(i);
+					DSEMergeScope clusterScope = (DSEMergeScope) EMFHelper.clone(scope);
+					List<ChangeSet> changeSets = ChangeSets.of(clusterScope);
+					for (ChangeSet changeSet : changeSets) {
+						retainChanges(changeSet, cluster);
+					}
+					DSEMergeContext clusterContext = new DSEMergeContext(changeSets);
+					clusterContext.setDeleteDependencies(context.getDeleteDependencies());
+					clusterContext.attach(clusterScope);
+					
+					last = i == partition.size() - 1;
+					explore(clusterScope, clusterContext);
+					if (trajectories.isEmpty()) {
+						// the whole merge has no solution, or the budget ran out; the report tells which
+						lastReport = monitor.createReport(0);
+						return Collections.<Solution>emptyIterator();
+					}
+				}
+				if (clusters.size() < partition.size()) {
+					lastReport = monitor.createReport(0); // stopped before every cluster was explored
+					return Collections.<Solution>emptyIterator();
+				}
+			}
+			
+			if (reportsSolutions()) {
+				lastReport = monitor.createReport(solutions.size());
+				return solutions.iterator();
+			}
+			lastReport = monitor.createReport(countCombinations());
+			return Iterators.transform(Lists.cartesianProduct(clusters).iterator(), new Function<List<SolutionTrajectory>, Solution>() {
+				@Override
+				public Solution apply(List<SolutionTrajectory> parts) {
+					return new Solution(solutionBase, parts);
+				}
+			});
 		}
-		dse.addObjective(modelQueriesHardObjective.withType(ModelQueryType.NO_MATCH));
 		
-		for (DSETransformationRule<?,?> rule : rules) {
-			dse.addTransformationRule(rule);
+		private void explore(DSEMergeScope scope, DSEMergeContext context) {
+			DesignSpaceExplorer dse = new DesignSpaceExplorer();
+			dse.addMetaModelPackage(metamodel);
+			dse.addMetaModelPackage(ScopePackage.eINSTANCE);
+			dse.addMetaModelPackage(ModelPackage.eINSTANCE);
+			
+			dse.setInitialModel(scope);
+			dse.setStateCoderFactory(serializerFactory);
+			
+			ModelQueriesHardObjective modelQueriesHardObjective = new ModelQueriesHardObjective();
+			for (IQuerySpecification<?> objective : objectives) {
+				modelQueriesHardObjective.withConstraint(objective);
+			}
+			dse.addObjective(modelQueriesHardObjective.withType(ModelQueryType.NO_MATCH));
+			
+			for (DSETransformationRule<?,?> rule : transformationRules) {
+				dse.addTransformationRule(rule);
+			}
+			
+			synchronized (this) {
+				trajectories = Lists.newArrayList();
+				clusters.add(trajectories);
+				strategy = createStrategy();
+			}
+			strategy.setMergeContext(context);
+			strategy.setTrajectoryListener(this);
+			strategy.setBudgetMonitor(monitor);
+			strategy.setTracer(tracer);
+			if (monitor.isStopped()) {
+				return;
+			}
+			dse.setMaxNumberOfThreads(threadCount);
+			dse.startExploration(strategy);
 		}
 		
-		try {
-			dse.addTransformationRule(new DSETransformationRule<ExecutableDeleteChangeMatch, ExecutableDeleteChangeMatcher>(ExecutableDeleteChangeQuerySpecification.instance(), new DefaultMatchProcessor<ExecutableDeleteChangeMatch>()));
-			dse.addTransformationRule(new DSETransformationRule<IPatternMatch, IncQueryMatcher<IPatternMatch>>(id2eobject, new DefaultMatchProcessor<IPatternMatch>()));
-		} catch (IncQueryException e) {
-			e.printStackTrace();
+		private DSEMergeStrategy createStrategy() {
+			if (beamWidth > 0) {
+				return new DSEMergeBeamStrategy(heuristic == null ? DSEMergeHeuristics.mostMayChanges() : heuristic, beamWidth);
+			}
+			return heuristic == null ? new DSEMergeStrategy() : new DSEMergeBestFirstStrategy(heuristic);
 		}
 		
-		DSEMergeStrategy strategy = new DSEMergeStrategy();
-		strategy.setId2EObject(id2eobject);
-		dse.setMaxNumberOfThreads(4);
-		dse.startExploration(strategy);
+		private long countCombinations() {
+			long count = 1;
+			for (List<SolutionTrajectory> cluster : clusters) {
+				if (count > Long.MAX_VALUE / Math.max(cluster.size(), 1)) {
+					return Long.MAX_VALUE;
+				}
+				count *= cluster.size();
+			}
+			return count;
+		}
 		
-		return buildSolutions(dse.getSolutions());
-	}
-	
-	private Collection<Solution> buildSolutions(Collection<org.eclipse.viatra.dse.api.Solution> solutions) {
-		Collection<Solution> s = Lists.newArrayList();
-		for (org.eclipse.viatra.dse.api.Solution solution : solutions) {
-			s.add(new Solution(scope, solution));
+		private boolean reportsSolutions() {
+			return listener != null || maxSolutions > 0;
+		}
+		
+		@Override
+		public synchronized void trajectoryFound(List<Object> activationCodes) {
+			if (monitor.isStopped()) {
+				return;
+			}
+			SolutionTrajectory trajectory = new SolutionTrajectory(activationCodes, transformationRules, serializerFactory);
+			trajectories.add(trajectory);
+			if (!last || !reportsSolutions()) {
+				return;
+			}
+			
+			List<List<SolutionTrajectory>> combinations = Lists.newArrayList(clusters.subList(0, clusters.size() - 1));
+			combinations.add(Collections.singletonList(trajectory));
+			for (List<SolutionTrajectory> parts : Lists.cartesianProduct(combinations)) {
+				Solution solution = new Solution(solutionBase, parts);
+				solutions.add(solution);
+				if (listener != null) {
+					listener.solutionFound(solution);
+				}
+				if (maxSolutions > 0 && solutions.size() >= maxSolutions) {
+					stop(StopReason.SOLUTION_LIMIT);
+					return;
+				}
+			}
+		}
+		
+		public synchronized void stop(StopReason reason) {
+			monitor.stop(reason);
+			if (strategy != null) {
+				strategy.stop();
+			}
 		}
-		return s;
 	}
 	
 	public DSEMergeScope applyMerge(SolutionTrajectory trajectory) {
@@ -145,7 +493,7 @@ public class DSEMergeManager {
 		return scope;
 	}
 	
-	private class DefaultMatchProcessor<T extends IPatternMatch> implements IMatchProcessor<T> {
+	private static class DefaultMatchProcessor<T extends IPatternMatch> implements IMatchProcessor<T> {
 
 		@Override
 		public void process(T match) {
@@ -153,43 +501,124 @@ public class DSEMergeManager {
 		
 	}
 	
+	public interface SolutionListener {
+		/**
+		 * Called from an exploration thread, so it should return quickly. The solution
+		 * may be opened right away, its base is not touched by the exploration.
+		 */
+		void solutionFound(Solution solution);
+	}
+	
 	public class Solution {
 		
-		private org.eclipse.viatra.dse.api.Solution solution;
+		private List<SolutionTrajectory> parts;
+		private DSEMergeScope base;
+		private ChangeDescription delta;
 		private DSEMergeScope scope;
-		private boolean applied = false;
 		
 		public Solution(DSEMergeScope scope, org.eclipse.viatra.dse.api.Solution solution) {
-			this.scope = (DSEMergeScope) EMFHelper.clone(scope);
-			this.solution = solution;
+			this(scope, Collections.singletonList(solution.getShortestTrajectory()));
+		}
+		
+		/**
+		 * The solution is kept as a delta over the given scope, so the scope must not be
+		 * modified while the solution is in use.
+		 */
+		public Solution(DSEMergeScope scope, List<SolutionTrajectory> parts) {
+			this.base = scope;
+			this.parts = parts;
 		}
 		
+		/**
+		 * Returns a standalone copy of the merged scope. The copy is made once, on the
+		 * first call, and fails while another solution is open on the scope.
+		 */
 		public DSEMergeScope getScope() {
-			if(!applied)
-				return applyMerge();
-			return scope;
+			synchronized (base) {
+				if(scope == null) {
+					Solution openSolution = openSolutions.get(base);
+					if(openSolution == this) {
+						scope = (DSEMergeScope) EMFHelper.clone(base);
+					} else {
+						if(openSolution != null)
+							throw new IllegalStateException("Another solution is open on the scope");
+						ChangeDescription delta = getDelta();
+						delta.applyAndReverse();
+						try {
+							scope = (DSEMergeScope) EMFHelper.clone(base);
+						} finally {
+							delta.applyAndReverse();
+						}
+					}
+					context.attach(scope);
+				}
+				return scope;
+			}
+		}
+		
+		/**
+		 * Returns the changes the solution makes on the original scope. Only the
+		 * objects and features touched by the trajectories are recorded.
+		 */
+		public ChangeDescription getDelta() {
+			synchronized (base) {
+				if(delta == null)
+					delta = applyMerge();
+				return delta;
+			}
+		}
+		
+		/**
+		 * Applies the solution in place on the scope of its run and returns it. Only one
+		 * solution of a run may be open at a time; {@link #close()} restores the scope.
+		 */
+		public DSEMergeScope open() {
+			synchronized (base) {
+				if(openSolutions.containsKey(base))
+					throw new IllegalStateException("Another solution is open on the scope");
+				getDelta().applyAndReverse();
+				openSolutions.put(base, this);
+			}
+			return base;
+		}
+		
+		public void close() {
+			synchronized (base) {
+				if(openSolutions.get(base) != this)
+					throw new IllegalStateException("The solution is not open");
+				delta.applyAndReverse();
+				openSolutions.remove(base);
+			}
 		}
 		
-		private DSEMergeScope applyMerge() {
+		private ChangeDescription applyMerge() {
+			if(openSolutions.containsKey(base))
+				throw new IllegalStateException("Another solution is open on the scope");
+			ChangeRecorder recorder = new ChangeRecorder(base);
 			try {
-				SolutionTrajectory trajectory = solution.getShortestTrajectory();
-				trajectory.setModel(this.scope);		
-				trajectory.doTransformation();
-				applied = true;
+				for (SolutionTrajectory trajectory : parts) {
+					trajectory.setModel(base);		
+					trajectory.doTransformation();
+				}
 			} catch (IncQueryException e) {
 				e.printStackTrace();
 			}
-			return this.scope;
+			// roll the scope back and keep the forward delta
+			ChangeDescription delta = recorder.endRecording();
+			recorder.dispose();
+			delta.applyAndReverse();
+			return delta;
 		}
 		
 		@Override
 		public String toString() {
 			StringBuilder sb = new StringBuilder();
 			sb.append("Solution:\n");
-			SolutionTrajectory trajectory = solution.getShortestTrajectory();
-			List<Object> list = trajectory.getActivationCodes();
-			for (Object l : list) {
-				sb.append(l);
+			for (SolutionTrajectory trajectory : parts) {
+				List<Object> list = trajectory.getActivationCodes();
+				for (Object l : list) {
+					sb.append(l);
+				}
 			}
 			return sb.toString();
 		}
@@ -0,0 +1,59 @@
+package org.eclipse.viatra.dse.merge;
+
+/**
+ * Summary of a merge run: why it stopped and how much it explored.
+ */
+public class DSEMergeReport {
+
+	public enum StopReason {
+		/** The whole design space was explored. */
+		COMPLETED,
+		TIME_LIMIT,
+		STATE_LIMIT,
+		HEAP_LIMIT,
+		/** The requested number of solutions was found. */
+		SOLUTION_LIMIT,
+		CANCELLED
+	}
+
+	private final StopReason stopReason;
+	private final long visitedStates;
+	private final long elapsedMillis;
+	private final long solutionCount;
+
+	public DSEMergeReport(StopReason stopReason, long visitedStates, long elapsedMillis, long solutionCount) {
+		this.stopReason = stopReason;
+		this.visitedStates = visitedStates;
+		this.elapsedMillis = elapsedMillis;
+		this.solutionCount = solutionCount;
+	}
+
+	public StopReason getStopReason() {
+		return stopReason;
+	}
+
+	/**
+	 * @return whether the solutions may be incomplete because a limit was hit
+	 */
+	public boolean isPartial() {
+		return stopReason != StopReason.COMPLETED;
+	}
+
+	public long getVisitedStates() {
+		return visitedStates;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	public long getSolutionCount() {
+		return solutionCount;
+	}
+
+	@Override
+	public String toString() {
+		return "Merge stopped: " + stopReason + ", states: " + visitedStates + ", time: " + elapsedMillis
+				+ "ms, solutions: " + solutionCount;
+	}
+}
@@ -0,0 +1,260 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.emf.common.notify.Adapter;
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.common.notify.impl.AdapterImpl;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EStructuralFeature.Setting;
+import org.eclipse.emf.ecore.util.ECrossReferenceAdapter;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Delete;
+import org.eclipse.viatra.dse.merge.model.ModelPackage;
+import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+import org.eclipse.viatra.dse.merge.util.ElementIndex;
+
+import com.google.common.collect.Lists;
+
+/**
+ * Binds one copy of a merge scope to its {@link DSEMergeContext} and resolves
+ * change ordinals to the changes of this copy.
+ */
+public class DSEMergeScopeAdapter extends AdapterImpl {
+
+	private final DSEMergeContext context;
+	private Change[] changes;
+	private ElementIndex elements;
+	private ECrossReferenceAdapter crossReferencer;
+	private MergeState state;
+	private final Adapter stateTracker = new StateTracker();
+
+	DSEMergeScopeAdapter(DSEMergeContext context) {
+		this.context = context;
+	}
+
+	public static DSEMergeScopeAdapter find(DSEMergeScope scope) {
+		for (Adapter adapter : scope.eAdapters()) {
+			if (adapter instanceof DSEMergeScopeAdapter)
+				return (DSEMergeScopeAdapter) adapter;
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the adapter of the scope, binding it to an empty context if the
+	 * scope was not prepared by {@link DSEMergeManager}.
+	 */
+	public static DSEMergeScopeAdapter get(DSEMergeScope scope) {
+		DSEMergeScopeAdapter adapter = find(scope);
+		if (adapter == null)
+			adapter = new DSEMergeContext(ChangeSets.of(scope)).attach(scope);
+		return adapter;
+	}
+
+	public DSEMergeContext getContext() {
+		return context;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == DSEMergeScopeAdapter.class;
+	}
+
+	/**
+	 * @return the change with the given ordinal, even if it is already applied, or
+	 *         <code>null</code> if this copy of the scope does not know it
+	 */
+	public Change getChange(int ordinal) {
+		if (changes == null)
+			changes = indexChanges();
+		if (ordinal < 0 || ordinal >= changes.length)
+			return null;
+		return changes[ordinal];
+	}
+
+	/**
+	 * Returns the id index of the model of this scope copy. It is installed on the
+	 * first call and kept up to date as the operations change the model.
+	 */
+	public ElementIndex getElementIndex() {
+		if (elements == null)
+			elements = ElementIndex.attach(((DSEMergeScope) getTarget()).getOrigin());
+		return elements;
+	}
+
+	/**
+	 * Returns the inverse reference index of this scope copy, installing one on the
+	 * scope on the first call.
+	 */
+	public ECrossReferenceAdapter getCrossReferencer() {
+		if (crossReferencer == null) {
+			DSEMergeScope scope = (DSEMergeScope) getTarget();
+			crossReferencer = ECrossReferenceAdapter.getCrossReferenceAdapter(scope);
+			if (crossReferencer == null) {
+				crossReferencer = new ECrossReferenceAdapter();
+				scope.eAdapters().add(crossReferencer);
+			}
+		}
+		return crossReferencer;
+	}
+
+	/**
+	 * Deletes the object like {@link EcoreUtil#delete(EObject)}, but the references
+	 * to it are looked up in the cross referencer of the scope instead of walking
+	 * the whole resource set.
+	 */
+	public void delete(EObject eObject) {
+		Collection<Setting> settings = getCrossReferencer().getInverseReferences(eObject, false);
+		for (Setting setting : Lists.newArrayList(settings)) {
+			if (setting.getEStructuralFeature().isChangeable())
+				EcoreUtil.remove(setting, eObject);
+		}
+		EcoreUtil.remove(eObject);
+	}
+
+	/**
+	 * Returns the bit set view of the changes of this scope copy, building it from
+	 * the changes on the first call. From then on the view follows the notifications
+	 * of the changes and change sets, so it is restored together with the model
+	 * when the design space manager undoes a transformation.
+	 */
+	public MergeState getState() {
+		if (state == null) {
+			BitSet executable = new BitSet();
+			BitSet applied = new BitSet();
+			for (int ordinal = 0; ordinal < context.getChangeCount(); ordinal++) {
+				Change change = getChange(ordinal);
+				if (change == null)
+					continue;
+				if (!isPending(change))
+					applied.set(ordinal);
+				else if (change.isExecutable())
+					executable.set(ordinal);
+				change.eAdapters().add(stateTracker);
+			}
+			for (ChangeSet changeSet : ChangeSets.of((DSEMergeScope) getTarget())) {
+				if (changeSet != null)
+					changeSet.eAdapters().add(stateTracker);
+			}
+			state = new MergeState(executable, applied);
+		}
+		return state;
+	}
+
+	public Collection<Delete> getDeleteDependencies(Object id) {
+		Collection<Integer> ordinals = context.getDeleteDependencies().get(id);
+		if (ordinals.isEmpty())
+			return Collections.emptyList();
+		List<Delete> deletes = Lists.newArrayListWithCapacity(ordinals.size());
+		for (Integer ordinal : ordinals) {
+			Change change = getChange(ordinal);
+			if (change instanceof Delete)
+				deletes.add((Delete) change);
+		}
+		return deletes;
+	}
+
+	/**
+	 * Disables the pending changes which conflict with the applied one according
+	 * to the {@link ConflictGraph} of the merge.
+	 */
+	public void disableConflicts(Change applied) {
+		if (!(applied.eContainer() instanceof ChangeSet))
+			return;
+		ConflictGraph graph = context.getConflictGraph();
+		MergeState state = getState();
+		int ordinal = applied.getOrdinal();
+		for (int i = 0, degree = graph.getDegree(ordinal); i < degree; i++) {
+			int conflict = graph.getConflict(ordinal, i);
+			if (!state.isExecutable(conflict))
+				continue;
+			Change change = getChange(conflict);
+			if (change != null)
+				change.setExecutable(false);
+		}
+	}
+
+	private void updateState(Object value) {
+		if (value instanceof Change) {
+			Change change = (Change) value;
+			boolean pending = isPending(change);
+			state.update(change.getOrdinal(), pending && change.isExecutable(), !pending);
+			if (change instanceof Create) {
+				for (Attribute attribute : ((Create) change).getAttributes()) {
+					updateState(attribute);
+				}
+			}
+		} else if (value instanceof Collection<?>) {
+			for (Object element : (Collection<?>) value) {
+				updateState(element);
+			}
+		}
+	}
+
+	private boolean isPending(Change change) {
+		EObject container = change.eContainer();
+		if (container instanceof Create)
+			container = container.eContainer();
+		return container instanceof ChangeSet;
+	}
+
+	private Change[] indexChanges() {
+		DSEMergeScope scope = (DSEMergeScope) getTarget();
+		int size = context.getChangeCount();
+		List<Change> all = Lists.newArrayList();
+		for (ChangeSet changeSet : ChangeSets.of(scope)) {
+			collect(changeSet, all);
+		}
+		for (Change change : all) {
+			size = Math.max(size, change.getOrdinal() + 1);
+		}
+		Change[] index = new Change[size];
+		for (Change change : all) {
+			if (change.getOrdinal() >= 0)
+				index[change.getOrdinal()] = change;
+		}
+		return index;
+	}
+
+	private void collect(ChangeSet changeSet, List<Change> all) {
+		if (changeSet == null)
+			return;
+		for (Change change : changeSet.getChanges()) {
+			all.add(change);
+			if (change instanceof Create) {
+				for (Attribute attribute : ((Create) change).getAttributes()) {
+					all.add(attribute);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Keeps the {@link MergeState} in sync with the executable flags and the
+	 * contents of the change sets and creates.
+	 */
+	private class StateTracker extends AdapterImpl {
+
+		@Override
+		public void notifyChanged(Notification notification) {
+			if (state == null || notification.isTouch())
+				return;
+			Object feature = notification.getFeature();
+			if (feature == ModelPackage.Literals.CHANGE__EXECUTABLE) {
+				updateState(notification.getNotifier());
+			} else if (feature == ModelPackage.Literals.CHANGE_SET__CHANGES || feature == ModelPackage.Literals.CREATE__ATTRIBUTES) {
+				updateState(notification.getOldValue());
+				updateState(notification.getNewValue());
+			}
+		}
+	}
+}
@@ -1,10 +1,13 @@
 package org.eclipse.viatra.dse.merge;
 
-import java.util.Comparator;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.apache.log4j.Logger;
 import org.eclipse.emf.common.notify.Notifier;
-import org.eclipse.emf.common.util.ECollections;
+import org.eclipse.emf.ecore.EClass;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.incquery.runtime.api.IPatternMatch;
@@ -17,11 +20,33 @@ import org.eclipse.viatra.dse.merge.model.Priority;
 import org.eclipse.viatra.dse.merge.model.Reference;
 import org.eclipse.viatra.dse.merge.queries.ExecutableDeleteChangeMatch;
 import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.util.ChangeComparator;
+import org.eclipse.viatra.dse.merge.util.PatternOrdinals;
 import org.eclipse.viatra.dse.statecode.IStateCoder;
 
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
 public class DSEMergeSerializer implements IStateCoder {
 
+	private static final Object SCOPE_ID = "scope";
+
 	private DSEMergeScope scope;
+	private Change[] buffer = new Change[0];
+	private List<Change> ordered = Lists.newArrayList();
+
+	private final PatternOrdinals patternOrdinals;
+	private ActivationCode[][][] codes = new ActivationCode[0][][];
+	private Object[] idBuffer = new Object[0];
+	private Map<EClass, EStructuralFeature> idFeatures = Maps.newHashMap();
+
+	public DSEMergeSerializer() {
+		this(new PatternOrdinals());
+	}
+
+	public DSEMergeSerializer(PatternOrdinals patternOrdinals) {
+		this.patternOrdinals = patternOrdinals;
+	}
 
 	@Override
 	public Object createStateCode() {
@@ -33,65 +58,50 @@ public class DSEMergeSerializer implements IStateCoder {
 		sb.append("Remote mods: {\n");
 		serializeChangeSet(scope.getRemote(), sb);
 		sb.append("\n}");
+		for (int i = 0; i < scope.getBranches().size(); i++) {
+			sb.append("Branch " + i + " mods: {\n");
+			serializeChangeSet(scope.getBranches().get(i), sb);
+			sb.append("\n}");
+		}
 		
 		return sb.toString();
 	}
 
 	private void serializeChangeSet(ChangeSet changeSet, StringBuilder sb) {
-		ECollections.sort(changeSet.getChanges(), new Comparator<Change>() {
-
-			@Override
-			public int compare(Change o1, Change o2) {
-				int ret = checkType(o1, o2);
-				if(ret == 0)
-					return ret;
-				
-				if(o1 instanceof Create && o2 instanceof Create)
-					ret = checkCreate((Create)o1, (Create)o2);
-				if(o1 instanceof Delete && o2 instanceof Delete)
-					ret = checkDelete((Delete)o1, (Delete)o2);
-				if(o1 instanceof Reference && o2 instanceof Reference)
-					ret = checkReference((Reference)o1, (Reference)o2);
-				if(o1 instanceof Attribute && o2 instanceof Attribute)
-					ret = checkAttribute((Attribute)o1, (Attribute)o2);
-					
-				return ret;
-			}
-
-			private int checkAttribute(Attribute o1, Attribute o2) {
-				int src = String.valueOf(DSEMergeStrategy.getId(o1.getSrc())).compareTo(String.valueOf(DSEMergeStrategy.getId(o2.getSrc())));
-				int feature = o1.getFeature().getName().compareTo(o2.getFeature().getName());
-				int type = o1.getKind().getName().compareTo(o2.getKind().getName());
-				int value = o1.getValue().toString().compareTo(o2.getValue().toString());
-				
-				return src + feature + type + value;
-			}
-
-			private int checkReference(Reference o1, Reference o2) {
-				int src = String.valueOf(DSEMergeStrategy.getId(o1.getSrc())).compareTo(String.valueOf(DSEMergeStrategy.getId(o2.getSrc())));
-				int feature = o1.getFeature().getName().compareTo(o2.getFeature().getName());
-				int type = o1.getKind().getName().compareTo(o2.getKind().getName());
-				int trg = String.valueOf(DSEMergeStrategy.getId(o1.getTrg())).compareTo(String.valueOf(DSEMergeStrategy.getId(o2.getTrg())));
-				
-				return src + feature + type + trg;
-			}
-
-			private int checkDelete(Delete o1, Delete o2) {
-				return String.valueOf(DSEMergeStrategy.getId(o1.getSrc())).compareTo(String.valueOf(DSEMergeStrategy.getId(o2.getSrc())));
-			}
+		for (Change change : inCanonicalOrder(changeSet.getChanges())) {
+			sb.append(serializeChange(change));
+		}
+	}
 
-			private int checkCreate(Create o1, Create o2) {
-				return String.valueOf(DSEMergeStrategy.getId(o1.getSrc())).compareTo(String.valueOf(DSEMergeStrategy.getId(o2.getSrc())));
+	/**
+	 * Orders the changes by their ordinal without touching the (containment) list
+	 * of the change set. Falls back to sorting a copy if ordinals were not assigned.
+	 */
+	private Iterable<Change> inCanonicalOrder(List<Change> changes) {
+		int size = 0;
+		for (Change change : changes) {
+			int ordinal = change.getOrdinal();
+			if (ordinal < 0) {
+				List<Change> copy = Lists.newArrayList(changes);
+				Collections.sort(copy, ChangeComparator.INSTANCE);
+				return copy;
 			}
+			size = Math.max(size, ordinal + 1);
+		}
 
-			private int checkType(Change o1, Change o2) {
-				return o1.getClass().getSimpleName().compareTo(o2.getClass().getSimpleName());
+		if (buffer.length < size)
+			buffer = new Change[size];
+		for (Change change : changes) {
+			buffer[change.getOrdinal()] = change;
+		}
+		ordered.clear();
+		for (int i = 0; i < size; i++) {
+			if (buffer[i] != null) {
+				ordered.add(buffer[i]);
+				buffer[i] = null;
 			}
-		});
-		
-		for (Change change : changeSet.getChanges()) {
-			sb.append(serializeChange(change));
 		}
+		return ordered;
 	}
 
 	private String serializeChange(Change change) {
@@ -123,10 +133,71 @@ public class DSEMergeSerializer implements IStateCoder {
 
 	@Override
 	public Object createActivationCode(IPatternMatch match) {
-		String ret = "";
-		if(match instanceof ExecutableDeleteChangeMatch) return ret;
+		if(match instanceof ExecutableDeleteChangeMatch) return "";
 		Change change = (Change) match.get("change");
-		if(change == null) return ret;
+		if(change == null) return "";
+		if(change.getOrdinal() < 0) return createLegacyActivationCode(match, change);
+
+		int pattern = patternOrdinals.get(match.patternName());
+		int length = match.parameterNames().size();
+		if(idBuffer.length < length)
+			idBuffer = new Object[length];
+		for (int i = 0; i < length; i++) {
+			idBuffer[i] = idOf(match.get(i));
+		}
+
+		if(codes.length <= pattern)
+			codes = Arrays.copyOf(codes, pattern + 1);
+		if(codes[pattern] == null || codes[pattern].length <= change.getOrdinal())
+			codes[pattern] = Arrays.copyOf(codes[pattern] == null ? new ActivationCode[0][] : codes[pattern], change.getOrdinal() + 1);
+
+		// a change usually has a single match per pattern, but may have a few
+		ActivationCode[] known = codes[pattern][change.getOrdinal()];
+		if(known != null) {
+			for (ActivationCode code : known) {
+				if(code.hasIds(idBuffer, length))
+					return code;
+			}
+		}
+		ActivationCode code = new ActivationCode(change.getPriority() == Priority.MUST, pattern, match.patternName(), change.getOrdinal(), Arrays.copyOf(idBuffer, length));
+		known = known == null ? new ActivationCode[1] : Arrays.copyOf(known, known.length + 1);
+		known[known.length - 1] = code;
+		codes[pattern][change.getOrdinal()] = known;
+		return code;
+	}
+
+	/**
+	 * @return a key of the parameter which is equal in every copy of the scope:
+	 *         the ordinal of a change or the id of an element
+	 * @throws IllegalStateException if the element has no "id" attribute
+	 */
+	private Object idOf(Object p) {
+		if(p instanceof DSEMergeScope) {
+			return SCOPE_ID;
+		}
+		else if(p instanceof Change) {
+			return Long.valueOf(((Change) p).getOrdinal());
+		}
+		else if(p instanceof EObject) {
+			EObject eObject = (EObject) p;
+			EClass eClass = eObject.eClass();
+			EStructuralFeature feature = idFeatures.get(eClass);
+			if(feature == null && !idFeatures.containsKey(eClass)) {
+				feature = eClass.getEStructuralFeature("id");
+				idFeatures.put(eClass, feature);
+			}
+			if(feature == null)
+				throw new IllegalStateException("Match parameter without an id attribute: " + eClass.getName());
+			return idOf(eObject.eGet(feature));
+		}
+		else if(p instanceof Integer || p instanceof Long) {
+			return Long.valueOf(((Number) p).longValue());
+		}
+		return p;
+	}
+
+	private String createLegacyActivationCode(IPatternMatch match, Change change) {
+		String ret = "";
 		if(change.getPriority() == Priority.MUST)
 			ret = DSEMergeStrategy.MUST_PREFIX;
 		else
@@ -163,4 +234,8 @@ public class DSEMergeSerializer implements IStateCoder {
 		}
 	}
 
+	protected DSEMergeScope getScope() {
+		return scope;
+	}
+
 }
@@ -1,13 +1,68 @@
 package org.eclipse.viatra.dse.merge;
 
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.eclipse.viatra.dse.merge.util.PatternOrdinals;
 import org.eclipse.viatra.dse.statecode.IStateCoder;
 import org.eclipse.viatra.dse.statecode.IStateCoderFactory;
 
 public class DSEMergeSerializerFactory implements IStateCoderFactory {
 
+	public enum Mode {
+		/** Human readable state codes built by {@link DSEMergeSerializer}. */
+		STRING,
+		/** 128 bit fingerprints built by {@link DSEMergeFingerprintSerializer}. */
+		FINGERPRINT,
+		/** Fingerprints maintained from model notifications by {@link DSEMergeIncrementalSerializer}. */
+		INCREMENTAL,
+		/** Fingerprints verified against the string state codes, for debugging. */
+		CHECKED_FINGERPRINT,
+		/** Bit sets of the executable and applied changes built by {@link DSEMergeBitSetSerializer}. */
+		BITSET
+	}
+
+	private final Mode mode;
+	private final ConcurrentMap<StateFingerprint, String> checkedCodes;
+	private final PatternOrdinals patternOrdinals;
+
+	public DSEMergeSerializerFactory() {
+		this(Mode.FINGERPRINT);
+	}
+
+	public DSEMergeSerializerFactory(Mode mode) {
+		this(mode, new PatternOrdinals());
+	}
+
+	/**
+	 * Creates a factory which numbers the patterns of the activation codes with the
+	 * given ordinals, so that factories of the same rule set agree on them.
+	 */
+	public DSEMergeSerializerFactory(Mode mode, PatternOrdinals patternOrdinals) {
+		this.mode = mode;
+		this.patternOrdinals = patternOrdinals;
+		this.checkedCodes = mode == Mode.CHECKED_FINGERPRINT ? new ConcurrentHashMap<StateFingerprint, String>() : null;
+	}
+
+	public Mode getMode() {
+		return mode;
+	}
+
 	@Override
 	public IStateCoder createStateCoder() {
-		return new DSEMergeSerializer();
+		switch (mode) {
+		case FINGERPRINT:
+			return new DSEMergeFingerprintSerializer(patternOrdinals, null);
+		case INCREMENTAL:
+			return new DSEMergeIncrementalSerializer(patternOrdinals, null);
+		case CHECKED_FINGERPRINT:
+			return new DSEMergeFingerprintSerializer(patternOrdinals, checkedCodes);
+		case BITSET:
+			return new DSEMergeBitSetSerializer(patternOrdinals);
+		case STRING:
+		default:
+			return new DSEMergeSerializer(patternOrdinals);
+		}
 	}
 
 }
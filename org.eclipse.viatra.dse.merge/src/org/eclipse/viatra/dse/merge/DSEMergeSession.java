@@ -0,0 +1,160 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EPackage;
+import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.incquery.runtime.api.IPatternMatch;
+import org.eclipse.incquery.runtime.api.IQuerySpecification;
+import org.eclipse.incquery.runtime.api.IncQueryMatcher;
+import org.eclipse.viatra.dse.api.DSETransformationRule;
+import org.eclipse.viatra.dse.merge.DSEMergeManager.Solution;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.util.DeleteDependencies;
+import org.eclipse.viatra.dse.merge.util.PatternOrdinals;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.ListenableFuture;
+
+/**
+ * Merge configuration of a metamodel which is prepared once and reused for many
+ * merges: the rule set including the rules of the merge itself, the objectives and
+ * the pattern ordinals of the activation codes.
+ * <p>
+ * The IncQuery engines are bound to the model copies of the exploration threads,
+ * so they are still built for every merge.
+ */
+public class DSEMergeSession {
+
+	private final EPackage metamodel;
+	private final Collection<IQuerySpecification<?>> objectives;
+	private final IQuerySpecification<IncQueryMatcher<IPatternMatch>> id2eobject;
+	private final List<DSETransformationRule<?,?>> preparedRules;
+	private final PatternOrdinals patternOrdinals = new PatternOrdinals();
+	private DSEMergeSerializerFactory.Mode serializerMode = DSEMergeSerializerFactory.Mode.FINGERPRINT;
+	private DSEMergeBudget budget = DSEMergeBudget.unlimited();
+	private int threadCount = Runtime.getRuntime().availableProcessors();
+	private Executor executor;
+	private DSEMergeHeuristic heuristic;
+	private int beamWidth = 0;
+
+	@SuppressWarnings("unchecked")
+	private DSEMergeSession(EPackage metamodel, Collection<DSETransformationRule<?,?>> rules,
+			Collection<IQuerySpecification<?>> objectives, IQuerySpecification<?> id2eobject) {
+		this.metamodel = metamodel;
+		this.objectives = ImmutableList.copyOf(objectives);
+		this.id2eobject = (IQuerySpecification<IncQueryMatcher<IPatternMatch>>) id2eobject;
+		this.preparedRules = ImmutableList.copyOf(DSEMergeManager.createRules(rules, this.id2eobject));
+	}
+
+	public static DSEMergeSession create(EPackage metamodel, Collection<DSETransformationRule<?,?>> rules,
+			Collection<IQuerySpecification<?>> objectives, IQuerySpecification<?> id2eobject) {
+		return new DSEMergeSession(metamodel, rules, objectives, id2eobject);
+	}
+
+	public void setSerializerMode(DSEMergeSerializerFactory.Mode serializerMode) {
+		this.serializerMode = serializerMode;
+	}
+
+	/**
+	 * Budget of the managers created afterwards.
+	 */
+	public void setBudget(DSEMergeBudget budget) {
+		this.budget = budget;
+	}
+
+	/**
+	 * Thread count of the managers created afterwards. When many merges of the session
+	 * run at the same time, their thread counts should add up to the processors.
+	 */
+	public void setThreadCount(int threadCount) {
+		if (threadCount < 1)
+			throw new IllegalArgumentException("At least one thread is needed: " + threadCount);
+		this.threadCount = threadCount;
+	}
+
+	/**
+	 * Executor of the asynchronous runs of the managers created afterwards.
+	 */
+	public void setExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Heuristic of the managers created afterwards, see
+	 * {@link DSEMergeManager#setHeuristic(DSEMergeHeuristic)}.
+	 */
+	public void setHeuristic(DSEMergeHeuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	/**
+	 * Beam width of the managers created afterwards, see
+	 * {@link DSEMergeManager#setBeamWidth(int)}.
+	 */
+	public void setBeamWidth(int beamWidth) {
+		this.beamWidth = beamWidth;
+	}
+
+	/**
+	 * Creates a manager for a merge with the prepared configuration. Managers of the
+	 * same session may run concurrently.
+	 */
+	public DSEMergeManager createManager(EObject original, ChangeSet local, ChangeSet remote) {
+		return createManager(original, local, remote, DeleteDependencies.of(original));
+	}
+
+	/**
+	 * Merges each remote change set with the local one against the same original
+	 * model. The original model is indexed once; every merge gets its own copy of the
+	 * original and of the local changes, so the arguments stay unchanged except for
+	 * the remote change sets, which are moved into their merges.
+	 * <p>
+	 * The merges run on the executor of the session, or on a pool sized by the
+	 * thread count if no executor is set.
+	 * 
+	 * @return the futures of the merges in the order of the remote change sets
+	 */
+	public List<ListenableFuture<Collection<Solution>>> mergeAll(EObject original, ChangeSet local, List<ChangeSet> remotes) {
+		DeleteDependencies deleteDependencies = DeleteDependencies.of(original);
+		ExecutorService ownExecutor = null;
+		if (executor == null) {
+			int workers = Math.max(1, Runtime.getRuntime().availableProcessors() / threadCount);
+			ownExecutor = Executors.newFixedThreadPool(Math.min(workers, Math.max(1, remotes.size())));
+		}
+		
+		List<ListenableFuture<Collection<Solution>>> futures = Lists.newArrayList();
+		for (ChangeSet remote : remotes) {
+			DSEMergeManager manager = createManager(EcoreUtil.copy(original), EcoreUtil.copy(local), remote, deleteDependencies);
+			if (ownExecutor != null) {
+				manager.setExecutor(ownExecutor);
+			}
+			futures.add(manager.startAsync(null, 0));
+		}
+		if (ownExecutor != null) {
+			ownExecutor.shutdown();
+		}
+		return futures;
+	}
+
+	private DSEMergeManager createManager(EObject original, ChangeSet local, ChangeSet remote, DeleteDependencies deleteDependencies) {
+		DSEMergeManager manager = DSEMergeManager.create(original, local, remote, deleteDependencies);
+		manager.setMetamodel(metamodel);
+		manager.setObjectives(objectives);
+		manager.setId2EObject(id2eobject);
+		manager.setPreparedRules(preparedRules);
+		manager.setSerializerFactory(new DSEMergeSerializerFactory(serializerMode, patternOrdinals));
+		manager.setBudget(budget);
+		manager.setThreadCount(threadCount);
+		manager.setExecutor(executor);
+		manager.setHeuristic(heuristic);
+		manager.setBeamWidth(beamWidth);
+		return manager;
+	}
+}
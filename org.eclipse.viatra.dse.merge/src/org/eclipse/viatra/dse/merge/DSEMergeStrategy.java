@@ -1,37 +1,29 @@
 package org.eclipse.viatra.dse.merge;
 
-import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 
-import org.apache.log4j.Logger;
-import org.eclipse.emf.ecore.EObject;
-import org.eclipse.emf.ecore.EStructuralFeature;
-import org.eclipse.incquery.runtime.api.IPatternMatch;
-import org.eclipse.incquery.runtime.api.IQuerySpecification;
-import org.eclipse.incquery.runtime.api.IncQueryEngine;
-import org.eclipse.incquery.runtime.api.IncQueryMatcher;
-import org.eclipse.viatra.dse.api.strategy.interfaces.IStrategy;
 import org.eclipse.viatra.dse.api.strategy.interfaces.LocalSearchStrategyBase;
 import org.eclipse.viatra.dse.base.DesignSpaceManager;
 import org.eclipse.viatra.dse.base.ThreadContext;
 import org.eclipse.viatra.dse.designspace.api.ITransition;
-import org.eclipse.viatra.dse.merge.model.Attribute;
-import org.eclipse.viatra.dse.merge.model.Change;
-import org.eclipse.viatra.dse.merge.model.ChangeSet;
-import org.eclipse.viatra.dse.merge.model.Create;
-import org.eclipse.viatra.dse.merge.model.Delete;
 import org.eclipse.viatra.dse.merge.model.Id;
-import org.eclipse.viatra.dse.merge.model.Reference;
 import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+import org.eclipse.viatra.dse.merge.util.ChangeSets;
+import org.eclipse.viatra.dse.merge.util.DeleteDependencies;
+import org.eclipse.viatra.dse.merge.util.ElementIndex;
 import org.eclipse.viatra.dse.merge.util.FilterHelper;
 import org.eclipse.viatra.dse.objectives.Fitness;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.HashMultimap;
+import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.Multimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
 public class DSEMergeStrategy extends LocalSearchStrategyBase {
@@ -40,97 +32,100 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 	private boolean isInterrupted = false;
 	public static String MUST_PREFIX = "MUST_";
 	public static String MAY_PREFIX = "MAY_";
-	private Logger logger = Logger.getLogger(IStrategy.class);
 	private Random random = new Random();
 	private DesignSpaceManager.FilterOptions filterOptions;
 	private boolean onlyNewMust = false;
-	private IQuerySpecification<IncQueryMatcher<IPatternMatch>> id2eobject;
 	
-	public static Multimap<Object, Delete> deleteDependencies = HashMultimap.create();
-	private Set<String> usedMustTransitions = Sets.newHashSet();
-	private Set<String> tempLiberateMustTransitions = Sets.newHashSet();
-	private Set<String> liberateMustTransitions = Sets.newHashSet();
+	private DSEMergeContext mergeContext;
+	private Set<Object> usedMustTransitions = Sets.newHashSet();
+	private Set<Object> tempLiberateMustTransitions = Sets.newHashSet();
+	private Set<Object> liberateMustTransitions = Sets.newHashSet();
+	
+	private final Set<Object> claimedTransitions;
+	private final Object forkedTransition;
+	private boolean forkedTransitionTaken = false;
+	private final AtomicBoolean stopped;
+	private TrajectoryListener trajectoryListener;
+	private BudgetMonitor budgetMonitor;
+	private DSEMergeTracer tracer;
+	private MergeState state;
+	private DSEMergeScopeAdapter scopeAdapter;
+	
+	/**
+	 * Notified from the exploration threads about every new goal state.
+	 */
+	public interface TrajectoryListener {
+		void trajectoryFound(List<Object> activationCodes);
+	}
+	
+	public DSEMergeStrategy() {
+		this.claimedTransitions = Sets.newSetFromMap(new ConcurrentHashMap<Object, Boolean>());
+		this.forkedTransition = null;
+		this.stopped = new AtomicBoolean();
+	}
+	
+	/**
+	 * Creates a strategy for a new thread which explores only the subtree of the
+	 * given transition of the current state of the parent.
+	 */
+	private DSEMergeStrategy(DSEMergeStrategy parent, Object forkedTransition) {
+		this.claimedTransitions = parent.claimedTransitions;
+		this.forkedTransition = forkedTransition;
+		this.mergeContext = parent.mergeContext;
+		this.stopped = parent.stopped;
+		this.trajectoryListener = parent.trajectoryListener;
+		this.budgetMonitor = parent.budgetMonitor;
+		this.tracer = parent.tracer;
+	}
 	
 	@Override
 	public void init(ThreadContext context) {
 		this.context = context;
 		filterOptions = new DesignSpaceManager.FilterOptions();
 		filterOptions.nothingIfCut().nothingIfGoal().untraversedOnly();
-		try {
-			initializeDeleteDependencies();
-		} catch (Exception e) {
-			e.printStackTrace();
-		}
+		initializeDeleteDependencies();
 	}
 
-	private void initializeDeleteDependencies() throws Exception {
+	private void initializeDeleteDependencies() {
 		DSEMergeScope scope = (DSEMergeScope) context.getEditingDomain().getResourceSet().getResources().get(0).getContents().get(0);
-		buildDeleteDependencies(scope.getLocal(), scope.getRemote());
-		buildDeleteDependencies(scope.getRemote(), scope.getLocal());
-	}
-
-	private void buildDeleteDependencies(ChangeSet from, ChangeSet to) throws Exception {
-		Multimap<Object,Object> idsNotToDelete = ArrayListMultimap.create();
+		DSEMergeScopeAdapter adapter = mergeContext == null ? DSEMergeScopeAdapter.get(scope) : mergeContext.attach(scope);
+		mergeContext = adapter.getContext();
+		scopeAdapter = adapter;
+		state = adapter.getState();
 		
-		for (Change change : from.getChanges()) {
-			if(change instanceof Create) {
-				findParents(getId(((Create)change).getContainer()), getId(((Create)change).getContainer()), idsNotToDelete);
-			}
-			else if(change instanceof Attribute) {
-				findParents(getId(((Attribute)change).getSrc()), getId(((Attribute)change).getSrc()), idsNotToDelete);
-			}
-			else if(change instanceof Reference) {
-				findParents(getId(((Reference)change).getSrc()), getId(((Reference)change).getSrc()), idsNotToDelete);
-				findParents(getId(((Reference)change).getTrg()), getId(((Reference)change).getTrg()), idsNotToDelete);
-			}
-		}
-		
-		for (Change change : to.getChanges()) {
-			if(change instanceof Delete) {
-				Object toDeleteObject = getId(change.getSrc());
-				for(Object id : idsNotToDelete.get(toDeleteObject)) {
-					deleteDependencies.put(id, (Delete)change);
-				}
+		synchronized (mergeContext) {
+			if (mergeContext.hasDeleteDependencies()) {
+				return;
 			}
+			ElementIndex elements = adapter.getElementIndex();
+			mergeContext.setDeleteDependencies(DeleteDependencies.of(elements).compute(ChangeSets.of(scope)));
 		}
 	}
 
-	private void findParents(Object current, Object original, Multimap<Object, Object> idsNotToDelete) throws Exception {
-		idsNotToDelete.put(current, original);
-		
-		IncQueryEngine engine = context.getIncqueryEngine();
-		IncQueryMatcher<IPatternMatch> matcherForCurrent = id2eobject.getMatcher(engine);
-		IPatternMatch partialMatchForCurrent = matcherForCurrent.newMatch(null, current);
-		Collection<IPatternMatch> matchesForCurrent = matcherForCurrent.getAllMatches(partialMatchForCurrent);
-		
-		if(matchesForCurrent.isEmpty()) {
-			return; // may create related...
-		}
-		
-		if(matchesForCurrent.size() > 1) {
-			throw new Exception(); // id has to be unique or not found
-		}
-		EObject eobject = (EObject) matchesForCurrent.iterator().next().get("eobject");
-		if (eobject.eContainer() == null) {
-			return; // no more parent...
-		}
-		EObject parent = eobject.eContainer();
-		EStructuralFeature feature = parent.eClass().getEStructuralFeature("id");
-		if(feature == null) return;
-		findParents(parent.eGet(feature), original, idsNotToDelete);				
-	}
-
 	@Override
 	public ITransition getNextTransition(boolean lastWasSuccessful) {
-		if (isInterrupted) {
+		if (shouldStop()) {
 			return null;
 		}
 
 		DesignSpaceManager dsm = context.getDesignSpaceManager();
 		
-		//Query available transitions
-		Iterable<? extends ITransition> transitions = FilterHelper.filterEmptyTransitions(dsm.getTransitionsFromCurrentState(filterOptions));
-		transitions = restrictTransitions(transitions);
+		if (forkedTransition != null) {
+			if (!forkedTransitionTaken) {
+				forkedTransitionTaken = true;
+				return findForkedTransition(dsm);
+			}
+			if (dsm.getTrajectoryInfo().getDepthFromCrawlerRoot() == 0) {
+				return null; // the rest of the fork state belongs to the parent
+			}
+		}
+		
+		//Query available transitions, every activation needs an executable change
+		Iterable<? extends ITransition> transitions = Collections.emptyList();
+		if (state.hasExecutable()) {
+			transitions = FilterHelper.filterEmptyTransitions(dsm.getTransitionsFromCurrentState(filterOptions));
+			transitions = restrictTransitions(transitions);
+		}
 		
 		if(dsm.getTrajectoryInfo().getDepthFromRoot() == 0) {
 			boolean needMust = FilterHelper.hasMustTransition(dsm.getCurrentState().getOutgoingTransitions());
@@ -140,24 +135,25 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 		}
 		
 		//Backtrack if there is no transitions
-		while (transitions == null || transitions.iterator().hasNext()) {
+		while (transitions == null || !transitions.iterator().hasNext()) {
 			boolean didUndo = dsm.undoLastTransformation();
 			if (!didUndo) {
 				return null;
 			}
+			if (forkedTransition != null && dsm.getTrajectoryInfo().getDepthFromCrawlerRoot() == 0) {
+				return null;
+			}
 
-			logger.debug("Backtracking as there aren't anymore transitions from this state: "
-					+ dsm.getCurrentState().getId());
+			if (tracer != null) {
+				tracer.exhausted(dsm.getCurrentState().getId());
+			}
 
 			//Update transitions
 			transitions = FilterHelper.filterEmptyTransitions(dsm.getTransitionsFromCurrentState(filterOptions));
 			transitions = restrictTransitions(transitions);			
 		}
 		
-//		TODO: parallel execution
-//		if (hasMust && transitions.size() > 1 && context.getGlobalContext().canStartNewThread()) {
-//			context.getGlobalContext().tryStartNewThread(context, new DSEMergeStrategy());
-//		}
+		transitions = forkMustBranches(dsm, transitions);
 
 		//Get a random transition from the available ones
 		int index = random.nextInt(Iterables.size(transitions));
@@ -168,18 +164,151 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 		}
 		ITransition transition = iterator.next();
 
-		logger.debug("Depth: "
-				+ dsm.getTrajectoryInfo().getDepthFromCrawlerRoot()
-				+ " Next transition: " + transition.getId() + " From state: "
-				+ transition.getFiredFrom().getId());
+		if (tracer != null) {
+			tracer.transitionSelected(transition.getFiredFrom().getId(), transition.getId(), dsm.getTrajectoryInfo().getDepthFromCrawlerRoot());
+		}
 
 		return transition;
 	}
 
-	private Iterable<? extends ITransition> restrictTransitions(Iterable<? extends ITransition> transitions) {
+	/**
+	 * @return whether the exploration was interrupted, stopped or ran out of budget
+	 */
+	protected boolean shouldStop() {
+		if (isInterrupted || stopped.get()) {
+			return true;
+		}
+		if (budgetMonitor != null && budgetMonitor.isExceeded()) {
+			if (tracer != null) {
+				tracer.budgetExceeded(budgetMonitor.getStopReason());
+			}
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Hands over MUST transitions of a branch point to new threads while there are
+	 * free ones. Every forked strategy explores the subtree of its transition only.
+	 * The transition is claimed before the thread starts, so the parent skips it from
+	 * then on and no other thread can take it.
+	 * 
+	 * @return the transitions left for this strategy
+	 */
+	private Iterable<? extends ITransition> forkMustBranches(DesignSpaceManager dsm, Iterable<? extends ITransition> transitions) {
+		if (!FilterHelper.hasMustTransition(transitions) || !context.getGlobalContext().canStartNewThread()) {
+			return transitions;
+		}
+		
+		List<ITransition> musts = Lists.newArrayList(FilterHelper.filterMustTransitions(transitions));
+		final Set<Object> offered = Sets.newHashSet();
+		for (ITransition must : musts.subList(1, musts.size())) {
+			if (!context.getGlobalContext().canStartNewThread()) {
+				break;
+			}
+			Object claimKey = claimKey(dsm, must);
+			if (!claimedTransitions.add(claimKey)) {
+				continue;
+			}
+			if (!context.getGlobalContext().tryStartNewThread(context, new DSEMergeStrategy(this, must.getId()))) {
+				claimedTransitions.remove(claimKey);
+				break;
+			}
+			offered.add(must.getId());
+			if (tracer != null) {
+				tracer.forked(dsm.getCurrentState().getId(), must.getId());
+			}
+		}
+		if (offered.isEmpty()) {
+			return transitions;
+		}
+		return Iterables.filter(transitions, new Predicate<ITransition>() {
+			@Override
+			public boolean apply(ITransition transition) {
+				return !offered.contains(transition.getId());
+			}
+		});
+	}
+
+	/**
+	 * @return the transition handed over by the parent, which has already claimed it
+	 */
+	private ITransition findForkedTransition(DesignSpaceManager dsm) {
+		for (ITransition transition : dsm.getTransitionsFromCurrentState(filterOptions)) {
+			if (forkedTransition.equals(transition.getId())) {
+				return transition;
+			}
+		}
+		return null; // already traversed by someone else
+	}
+
+	private Object claimKey(DesignSpaceManager dsm, ITransition transition) {
+		return Maps.immutableEntry(dsm.getCurrentState().getId(), transition.getId());
+	}
+
+	private Iterable<? extends ITransition> filterClaimedTransitions(final DesignSpaceManager dsm, Iterable<? extends ITransition> transitions) {
+		if (claimedTransitions.isEmpty()) {
+			return transitions;
+		}
+		return Iterables.filter(transitions, new Predicate<ITransition>() {
+			@Override
+			public boolean apply(ITransition transition) {
+				return !claimedTransitions.contains(claimKey(dsm, transition));
+			}
+		});
+	}
+
+	/**
+	 * MUST changes which are independent according to the conflict graph are applied
+	 * in every solution and commute with each other, so only the one with the lowest
+	 * ordinal is kept to avoid exploring their interleavings.
+	 */
+	private Iterable<? extends ITransition> pruneIndependentMusts(Iterable<? extends ITransition> transitions) {
+		if (mergeContext == null) {
+			return transitions;
+		}
+		ActivationCode first = null;
+		int independent = 0;
+		for (ITransition transition : transitions) {
+			ActivationCode code = independentCode(transition);
+			if (code != null) {
+				independent++;
+				if (first == null || code.getChange() < first.getChange())
+					first = code;
+			}
+		}
+		if (independent <= 1) {
+			return transitions;
+		}
+		final ActivationCode kept = first;
+		return Iterables.filter(transitions, new Predicate<ITransition>() {
+			@Override
+			public boolean apply(ITransition transition) {
+				ActivationCode code = independentCode(transition);
+				return code == null || code == kept;
+			}
+		});
+	}
+
+	private ActivationCode independentCode(ITransition transition) {
+		if (!(transition.getId() instanceof ActivationCode)) {
+			return null;
+		}
+		ActivationCode code = (ActivationCode) transition.getId();
+		return code.isMust() && mergeContext.isIndependent(code.getChange()) ? code : null;
+	}
+
+	/**
+	 * Keeps the MUST transitions only if there are any, leaving out the claimed
+	 * ones and the interleavings of independent MUST changes.
+	 */
+	protected Iterable<? extends ITransition> restrictTransitions(Iterable<? extends ITransition> transitions) {
+		transitions = filterClaimedTransitions(context.getDesignSpaceManager(), transitions);
 		boolean hasMust = FilterHelper.hasMustTransition(transitions);
-		if(hasMust || onlyNewMust)
+		if(hasMust || onlyNewMust) {
 			transitions = FilterHelper.filterMustTransitions(transitions);
+			transitions = pruneIndependentMusts(transitions);
+		}
 		if(onlyNewMust)
 			transitions = FilterHelper.filterAlreadyUsedTransitions(transitions, usedMustTransitions);
 		return transitions;
@@ -187,9 +316,10 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 
 	@Override
 	public void newStateIsProcessed(boolean isAlreadyTraversed,	Fitness fitness, boolean constraintsNotSatisfied) {
+		stateVisited();
 		if(isAlreadyTraversed) {
 			DesignSpaceManager dsm = context.getDesignSpaceManager();
-			boolean isMust = dsm.getTrajectoryInfo().getLastTransition().getId().toString().startsWith(MUST_PREFIX);
+			boolean isMust = FilterHelper.isMust(dsm.getTrajectoryInfo().getLastTransition());
 			if(isMust) {
 				undoUntilMust(isAlreadyTraversed, fitness, constraintsNotSatisfied,	dsm);				
 			} else {
@@ -202,6 +332,7 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 		if (fitness.isSatisifiesHardObjectives()) {
 			
 			DesignSpaceManager dsm = context.getDesignSpaceManager();
+			reportSolution(dsm);
 			processNotTraversed(isAlreadyTraversed);
 			onlyNewMust = true; //we found a solution
 			undoUntilMust(isAlreadyTraversed, fitness, constraintsNotSatisfied,	dsm);
@@ -211,15 +342,53 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 		processNotTraversed(isAlreadyTraversed);
 	}
 
+	protected void stateVisited() {
+		if (budgetMonitor != null) {
+			budgetMonitor.stateVisited();
+		}
+	}
+
+	/**
+	 * Reports the trajectory of the current state as a solution.
+	 */
+	protected void reportSolution(DesignSpaceManager dsm) {
+		if (trajectoryListener == null && tracer == null) {
+			return;
+		}
+		List<Object> activationCodes = Lists.newArrayList();
+		for (ITransition transition : dsm.getTrajectoryInfo().getFullTransitionTrajectory()) {
+			activationCodes.add(transition.getId());
+		}
+		if (tracer != null) {
+			tracer.solutionFound(activationCodes);
+		}
+		if (trajectoryListener != null) {
+			trajectoryListener.trajectoryFound(activationCodes);
+		}
+	}
+
+	protected ThreadContext getThreadContext() {
+		return context;
+	}
+
+	protected DSEMergeScopeAdapter getScopeAdapter() {
+		return scopeAdapter;
+	}
+
+	protected DSEMergeTracer getTracer() {
+		return tracer;
+	}
+
 	private void processNotTraversed(boolean isAlreadyTraversed) {
 		if (!isAlreadyTraversed && context.getDesignSpaceManager().getTrajectoryInfo().getLastTransition() != null)  {
 			
 			DesignSpaceManager dsm = context.getDesignSpaceManager();
-			boolean isMust = dsm.getTrajectoryInfo().getLastTransition().getId().toString().startsWith(MUST_PREFIX);
-			if(isMust && !usedMustTransitions.contains(dsm.getTrajectoryInfo().getLastTransition().getId().toString())) {
+			ITransition lastTransition = dsm.getTrajectoryInfo().getLastTransition();
+			boolean isMust = FilterHelper.isMust(lastTransition);
+			if(isMust && !usedMustTransitions.contains(lastTransition.getId())) {
 				if(!usedMustTransitions.isEmpty() && dsm.getTrajectoryInfo().getFullTransitionTrajectory().size() == 1)
 					usedMustTransitions.clear();
-				usedMustTransitions.add(dsm.getTrajectoryInfo().getLastTransition().getId().toString());
+				usedMustTransitions.add(lastTransition.getId());
 				onlyNewMust = false;				
 			}
 		}
@@ -229,10 +398,14 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 			boolean constraintsNotSatisfied, DesignSpaceManager dsm) {
 		boolean hasMust;
 		do {
+			if(dsm.getTrajectoryInfo().getDepthFromCrawlerRoot() == 0)
+				break; // a forked strategy does not backtrack above its fork state
 			if(!dsm.undoLastTransformation())
 				return;
 			
-			logBacktrack(isAlreadyTraversed, fitness, constraintsNotSatisfied);
+			if (tracer != null) {
+				tracer.backtracked(dsm.getCurrentState().getId(), isAlreadyTraversed, fitness.isSatisifiesHardObjectives(), constraintsNotSatisfied);
+			}
 			liberateMustTransitions.addAll(tempLiberateMustTransitions);
 			tempLiberateMustTransitions.clear();
 			Iterable<? extends ITransition> transitions = FilterHelper.filterEmptyTransitions(dsm.getCurrentState().getOutgoingTransitions());
@@ -240,25 +413,37 @@ public class DSEMergeStrategy extends LocalSearchStrategyBase {
 			transitions = FilterHelper.filterEmptyTransitions(dsm.getTransitionsFromCurrentState(filterOptions));
 			transitions = restrictTransitions(transitions);
 			hasMust = FilterHelper.hasMustTransition(transitions);
-		} while (!hasMust && dsm.getTrajectoryInfo().getDepthFromRoot() > 0);
+		} while (!hasMust && dsm.getTrajectoryInfo().getDepthFromCrawlerRoot() > 0);
 		usedMustTransitions.removeAll(liberateMustTransitions);
 		liberateMustTransitions.clear();
 	}
 
-	private void logBacktrack(boolean isAlreadyTraversed, Fitness fitness,
-			boolean constraintsNotSatisfied) {
-		logger.debug("Backtrack. Already traversed: " + isAlreadyTraversed
-				+ ". Goal state: " + (fitness.isSatisifiesHardObjectives())
-				+ ". Constraints not satisfied: " + constraintsNotSatisfied);
-	}
-
 	@Override
 	public void interrupted() {
 		isInterrupted = true;
 	}
 
-	public void setId2EObject(IQuerySpecification<IncQueryMatcher<IPatternMatch>> querySpecification) {
-		this.id2eobject = querySpecification;
+	public void setMergeContext(DSEMergeContext mergeContext) {
+		this.mergeContext = mergeContext;
+	}
+
+	public void setTrajectoryListener(TrajectoryListener trajectoryListener) {
+		this.trajectoryListener = trajectoryListener;
+	}
+
+	public void setTracer(DSEMergeTracer tracer) {
+		this.tracer = tracer;
+	}
+
+	void setBudgetMonitor(BudgetMonitor budgetMonitor) {
+		this.budgetMonitor = budgetMonitor;
+	}
+
+	/**
+	 * Stops this strategy and every strategy forked from it.
+	 */
+	public void stop() {
+		stopped.set(true);
 	}
 
 	public static Object getId(Id id) {
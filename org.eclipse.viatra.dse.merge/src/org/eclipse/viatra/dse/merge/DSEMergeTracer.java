@@ -0,0 +1,26 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.List;
+
+/**
+ * Receives the trace events of a merge exploration. The events are raised from the
+ * exploration threads and only when a tracer is set, so merges without a tracer
+ * pay nothing for them.
+ */
+public interface DSEMergeTracer {
+
+	void transitionSelected(Object stateId, Object transitionId, int depth);
+
+	/**
+	 * The strategy stepped back from a state which has no more transitions to try.
+	 */
+	void exhausted(Object stateId);
+
+	void backtracked(Object stateId, boolean alreadyTraversed, boolean goalState, boolean constraintsNotSatisfied);
+
+	void forked(Object stateId, Object transitionId);
+
+	void solutionFound(List<Object> activationCodes);
+
+	void budgetExceeded(DSEMergeReport.StopReason reason);
+}
@@ -0,0 +1,57 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Writes the trace events to the debug level of the {@link DSEMergeStrategy}
+ * logger. It does not configure log4j.
+ */
+public class Log4jMergeTracer implements DSEMergeTracer {
+
+	private final Logger logger = Logger.getLogger(DSEMergeStrategy.class);
+
+	@Override
+	public void transitionSelected(Object stateId, Object transitionId, int depth) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Depth: " + depth + " Next transition: " + transitionId + " From state: " + stateId);
+		}
+	}
+
+	@Override
+	public void exhausted(Object stateId) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Backtracking as there aren't anymore transitions from this state: " + stateId);
+		}
+	}
+
+	@Override
+	public void backtracked(Object stateId, boolean alreadyTraversed, boolean goalState, boolean constraintsNotSatisfied) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Backtrack. Already traversed: " + alreadyTraversed + ". Goal state: " + goalState
+					+ ". Constraints not satisfied: " + constraintsNotSatisfied);
+		}
+	}
+
+	@Override
+	public void forked(Object stateId, Object transitionId) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Forked exploration of " + transitionId + " from state: " + stateId);
+		}
+	}
+
+	@Override
+	public void solutionFound(List<Object> activationCodes) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Solution: " + activationCodes);
+		}
+	}
+
+	@Override
+	public void budgetExceeded(DSEMergeReport.StopReason reason) {
+		if (logger.isDebugEnabled()) {
+			logger.debug("Stopping as the budget of the merge is exceeded: " + reason);
+		}
+	}
+}
@@ -0,0 +1,115 @@
+package org.eclipse.viatra.dse.merge;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Bit set view of the changes of one scope copy, indexed by change ordinal: the
+ * executable bits are set for the pending changes which are still executable, the
+ * applied bits for the changes already applied. The view is built from the changes
+ * once and then kept up to date by {@link DSEMergeScopeAdapter} from the
+ * notifications of the changes, including the ones of an undo.
+ */
+public class MergeState {
+
+	private final BitSet executable;
+	private final BitSet applied;
+
+	MergeState(BitSet executable, BitSet applied) {
+		this.executable = executable;
+		this.applied = applied;
+	}
+
+	public boolean isExecutable(int ordinal) {
+		return ordinal >= 0 && executable.get(ordinal);
+	}
+
+	public boolean isApplied(int ordinal) {
+		return ordinal >= 0 && applied.get(ordinal);
+	}
+
+	public boolean hasExecutable() {
+		return !executable.isEmpty();
+	}
+
+	public int getExecutableCount() {
+		return executable.cardinality();
+	}
+
+	public int getAppliedCount() {
+		return applied.cardinality();
+	}
+
+	/**
+	 * @return whether any of the given changes is still executable
+	 */
+	public boolean anyExecutable(BitSet ordinals) {
+		return executable.intersects(ordinals);
+	}
+
+	/**
+	 * @return a copy of the executable bits
+	 */
+	public BitSet getExecutable() {
+		return (BitSet) executable.clone();
+	}
+
+	/**
+	 * @return a copy of the applied bits
+	 */
+	public BitSet getApplied() {
+		return (BitSet) applied.clone();
+	}
+
+	/**
+	 * Two scope copies of the same merge have equal codes exactly if they applied and
+	 * disabled the same changes.
+	 */
+	public Code createCode() {
+		return new Code(executable.toLongArray(), applied.toLongArray());
+	}
+
+	void update(int ordinal, boolean isExecutable, boolean isApplied) {
+		if (ordinal < 0)
+			return;
+		executable.set(ordinal, isExecutable);
+		applied.set(ordinal, isApplied);
+	}
+
+	/**
+	 * State code made of the words of the two bit sets.
+	 */
+	public static final class Code {
+
+		private final long[] executable;
+		private final long[] applied;
+		private final int hash;
+
+		Code(long[] executable, long[] applied) {
+			this.executable = executable;
+			this.applied = applied;
+			this.hash = 31 * Arrays.hashCode(executable) + Arrays.hashCode(applied);
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Code))
+				return false;
+			Code other = (Code) obj;
+			return hash == other.hash && Arrays.equals(executable, other.executable)
+					&& Arrays.equals(applied, other.applied);
+		}
+
+		@Override
+		public String toString() {
+			return "executable: " + BitSet.valueOf(executable) + ", applied: " + BitSet.valueOf(applied);
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package org.eclipse.viatra.dse.merge;
+
+/**
+ * Fixed-width (128 bit) state code produced by {@link DSEMergeFingerprintSerializer}.
+ */
+public final class StateFingerprint {
+
+	private final long high;
+	private final long low;
+
+	public StateFingerprint(long high, long low) {
+		this.high = high;
+		this.low = low;
+	}
+
+	public long getHigh() {
+		return high;
+	}
+
+	public long getLow() {
+		return low;
+	}
+
+	@Override
+	public int hashCode() {
+		long h = high ^ low;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (!(obj instanceof StateFingerprint))
+			return false;
+		StateFingerprint other = (StateFingerprint) obj;
+		return high == other.high && low == other.low;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%016x%016x", high, low);
+	}
+}
@@ -4,9 +4,9 @@ import org.eclipse.emf.common.util.EList;
 import org.eclipse.emf.ecore.EObject;
 import org.eclipse.emf.ecore.EStructuralFeature;
 import org.eclipse.emf.ecore.util.EcoreUtil;
+import org.eclipse.viatra.dse.merge.DSEMergeScopeAdapter;
 import org.eclipse.viatra.dse.merge.DSEMergeStrategy;
 import org.eclipse.viatra.dse.merge.model.Attribute;
-import org.eclipse.viatra.dse.merge.model.Change;
 import org.eclipse.viatra.dse.merge.model.Create;
 import org.eclipse.viatra.dse.merge.model.Delete;
 import org.eclipse.viatra.dse.merge.model.Feature;
@@ -56,42 +56,16 @@ public class DefaultCreateOperation {
 
 		update(pScope, pChange);
 
-		EcoreUtil.delete(pChange);
+		DSEMergeScopeAdapter.get(pScope).delete(pChange);
 	}
 
 	private static void update(DSEMergeScope pScope, Create pChange) {
-		for (Delete d : DSEMergeStrategy.deleteDependencies.get(DSEMergeStrategy.getId(pChange
-				.getSrc()))) {
+		DSEMergeScopeAdapter index = DSEMergeScopeAdapter.get(pScope);
+		Object src = DSEMergeStrategy.getId(pChange.getSrc());
+		for (Delete d : index.getDeleteDependencies(src)) {
 			d.setExecutable(false);
-			;
-		}
-
-		if (pScope.getRemote().getChanges().contains(pChange)) {
-			for (Change change : pScope.getLocal().getChanges()) {
-				setToFalse(pChange, change);
-			}
-		}
-
-		if (pScope.getLocal().getChanges().contains(pChange)) {
-			for (Change change : pScope.getRemote().getChanges()) {
-				setToFalse(pChange, change);
-			}
 		}
 
+		index.disableConflicts(pChange);
 	}
-
-	private static void setToFalse(Create pChange, Change change) {
-		if (change instanceof Create) {
-			Create _change = (Create) change;
-			if (DSEMergeStrategy.getId(_change.getSrc()) == DSEMergeStrategy
-					.getId(pChange.getSrc())) {
-				_change.setExecutable(false);
-				for (Attribute attribute : pChange.getAttributes()) {
-					attribute.setExecutable(false);
-				}
-			}
-
-		}
-	}
-
 }
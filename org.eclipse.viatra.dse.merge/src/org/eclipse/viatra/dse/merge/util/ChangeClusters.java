@@ -0,0 +1,106 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.viatra.dse.merge.DSEMergeStrategy;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Reference;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Partitions the changes of a merge into clusters which can be explored
+ * independently. Two changes are in the same cluster if they touch a common
+ * element (as src, target or container) or if they are connected by a delete
+ * dependency. Conflicting changes always touch a common element.
+ */
+public class ChangeClusters {
+
+	private final int[] parent;
+
+	private ChangeClusters(int size) {
+		parent = new int[size];
+		for (int i = 0; i < size; i++) {
+			parent[i] = i;
+		}
+	}
+
+	/**
+	 * @return the ordinals of the top level changes of each cluster
+	 */
+	public static List<BitSet> compute(ChangeSet local, ChangeSet remote, int changeCount, ImmutableSetMultimap<Object, Integer> deleteDependencies) {
+		return compute(ChangeSets.of(local, remote), changeCount, deleteDependencies);
+	}
+
+	/**
+	 * @return the ordinals of the top level changes of each cluster
+	 */
+	public static List<BitSet> compute(List<ChangeSet> changeSets, int changeCount, ImmutableSetMultimap<Object, Integer> deleteDependencies) {
+		ChangeClusters clusters = new ChangeClusters(changeCount);
+		Map<Object, Integer> elements = Maps.newHashMap();
+		BitSet changes = new BitSet(changeCount);
+
+		for (ChangeSet changeSet : changeSets) {
+			if (changeSet == null)
+				continue;
+			for (Change change : changeSet.getChanges()) {
+				int ordinal = change.getOrdinal();
+				changes.set(ordinal);
+				clusters.touch(elements, DSEMergeStrategy.getId(change.getSrc()), ordinal);
+				if (change instanceof Create)
+					clusters.touch(elements, DSEMergeStrategy.getId(((Create) change).getContainer()), ordinal);
+				if (change instanceof Reference)
+					clusters.touch(elements, DSEMergeStrategy.getId(((Reference) change).getTrg()), ordinal);
+			}
+		}
+
+		for (Map.Entry<Object, Integer> dependency : deleteDependencies.entries()) {
+			Integer element = elements.get(dependency.getKey());
+			if (element != null && dependency.getValue() < changeCount)
+				clusters.union(element, dependency.getValue());
+		}
+
+		Map<Integer, BitSet> byRoot = Maps.newLinkedHashMap();
+		for (int ordinal = changes.nextSetBit(0); ordinal >= 0; ordinal = changes.nextSetBit(ordinal + 1)) {
+			int root = clusters.find(ordinal);
+			BitSet cluster = byRoot.get(root);
+			if (cluster == null) {
+				cluster = new BitSet(changeCount);
+				byRoot.put(root, cluster);
+			}
+			cluster.set(ordinal);
+		}
+		return Lists.newArrayList(byRoot.values());
+	}
+
+	private void touch(Map<Object, Integer> elements, Object id, int ordinal) {
+		if (id == null)
+			return;
+		Integer other = elements.get(id);
+		if (other == null)
+			elements.put(id, ordinal);
+		else
+			union(other, ordinal);
+	}
+
+	private int find(int i) {
+		while (parent[i] != i) {
+			parent[i] = parent[parent[i]];
+			i = parent[i];
+		}
+		return i;
+	}
+
+	private void union(int a, int b) {
+		int rootA = find(a);
+		int rootB = find(b);
+		if (rootA != rootB)
+			parent[Math.max(rootA, rootB)] = Math.min(rootA, rootB);
+	}
+}
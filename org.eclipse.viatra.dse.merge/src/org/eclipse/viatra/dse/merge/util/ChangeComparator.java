@@ -0,0 +1,74 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.Comparator;
+
+import org.eclipse.emf.ecore.ENamedElement;
+import org.eclipse.viatra.dse.merge.DSEMergeStrategy;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Id;
+import org.eclipse.viatra.dse.merge.model.Reference;
+
+/**
+ * Content based order of changes, used to assign the canonical ordinals.
+ */
+public class ChangeComparator implements Comparator<Change> {
+
+	public static final ChangeComparator INSTANCE = new ChangeComparator();
+
+	@Override
+	public int compare(Change o1, Change o2) {
+		int ret = o1.eClass().getName().compareTo(o2.eClass().getName());
+		if (ret != 0)
+			return ret;
+
+		ret = compare(o1.getSrc(), o2.getSrc());
+		if (ret != 0)
+			return ret;
+
+		if (o1 instanceof Create && o2 instanceof Create)
+			ret = checkCreate((Create) o1, (Create) o2);
+		if (o1 instanceof Reference && o2 instanceof Reference)
+			ret = checkReference((Reference) o1, (Reference) o2);
+		if (o1 instanceof Attribute && o2 instanceof Attribute)
+			ret = checkAttribute((Attribute) o1, (Attribute) o2);
+
+		return ret;
+	}
+
+	private int checkCreate(Create o1, Create o2) {
+		int ret = compare(o1.getContainer(), o2.getContainer());
+		if (ret != 0)
+			return ret;
+		return compare(o1.getFeature(), o2.getFeature());
+	}
+
+	private int checkReference(Reference o1, Reference o2) {
+		int ret = compare(o1.getFeature(), o2.getFeature());
+		if (ret != 0)
+			return ret;
+		ret = o1.getKind().compareTo(o2.getKind());
+		if (ret != 0)
+			return ret;
+		return compare(o1.getTrg(), o2.getTrg());
+	}
+
+	private int checkAttribute(Attribute o1, Attribute o2) {
+		int ret = compare(o1.getFeature(), o2.getFeature());
+		if (ret != 0)
+			return ret;
+		ret = o1.getKind().compareTo(o2.getKind());
+		if (ret != 0)
+			return ret;
+		return String.valueOf(o1.getValue()).compareTo(String.valueOf(o2.getValue()));
+	}
+
+	private int compare(Id id1, Id id2) {
+		return String.valueOf(DSEMergeStrategy.getId(id1)).compareTo(String.valueOf(DSEMergeStrategy.getId(id2)));
+	}
+
+	private int compare(ENamedElement e1, ENamedElement e2) {
+		return String.valueOf(e1 == null ? null : e1.getName()).compareTo(String.valueOf(e2 == null ? null : e2.getName()));
+	}
+}
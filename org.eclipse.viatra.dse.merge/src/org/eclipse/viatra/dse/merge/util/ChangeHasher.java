@@ -0,0 +1,110 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Delete;
+import org.eclipse.viatra.dse.merge.model.Id;
+import org.eclipse.viatra.dse.merge.model.Reference;
+
+/**
+ * Allocation free hashing of {@link Change} contents. A change set is hashed as
+ * the (wrapping) sum of its change hashes, so the result does not depend on the
+ * order of the changes and can be maintained incrementally.
+ */
+public final class ChangeHasher {
+
+	public static final long SEED_HIGH = 0x9E3779B97F4A7C15L;
+	public static final long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+	private static final long LOCAL_SALT = 0x165667B19E3779F9L;
+	private static final long REMOTE_SALT = 0x27D4EB2F165667C5L;
+
+	private static final long MULTIPLIER = 0xFF51AFD7ED558CCDL;
+
+	private ChangeHasher() {
+	}
+
+	/**
+	 * @param side
+	 *            the index of the change set of the change, see {@link ChangeSets}
+	 */
+	public static long hash(Change change, int side, long seed) {
+		long h = seed ^ salt(side);
+		h = step(h, change.isExecutable() ? 1 : 2);
+		h = step(h, change.getPriority() == null ? 0 : change.getPriority().getValue());
+		h = step(h, hash(change.getSrc()));
+
+		if (change instanceof Create) {
+			Create create = (Create) change;
+			h = step(h, 11);
+			h = step(h, hash(create.getContainer()));
+			h = step(h, hash(create.getFeature()));
+			h = step(h, hash(create.getClazz()));
+		} else if (change instanceof Delete) {
+			h = step(h, 13);
+		} else if (change instanceof Reference) {
+			Reference reference = (Reference) change;
+			h = step(h, 17);
+			h = step(h, hash(reference.getTrg()));
+			h = step(h, hash(reference.getFeature()));
+			h = step(h, reference.getKind() == null ? 0 : reference.getKind().getValue());
+		} else if (change instanceof Attribute) {
+			Attribute attribute = (Attribute) change;
+			h = step(h, 19);
+			h = step(h, attribute.getValue() == null ? 0 : attribute.getValue().hashCode());
+			h = step(h, hash(attribute.getFeature()));
+			h = step(h, attribute.getKind() == null ? 0 : attribute.getKind().getValue());
+		}
+		return mix(h);
+	}
+
+	private static long salt(int side) {
+		switch (side) {
+		case 0: return LOCAL_SALT;
+		case 1: return REMOTE_SALT;
+		default:
+			return mix(REMOTE_SALT + side * MULTIPLIER);
+		}
+	}
+
+	public static long hash(Id id) {
+		if (id == null || id.getType() == null)
+			return 0;
+		switch (id.getType()) {
+		case EINT: return step(1, id.getEInt());
+		case ELONG: return step(2, id.getELong());
+		case ESTRING: return step(3, id.getEString() == null ? 0 : id.getEString().hashCode());
+		default:
+			return 0;
+		}
+	}
+
+	private static long hash(EStructuralFeature feature) {
+		if (feature == null)
+			return 0;
+		return step(feature.getName().hashCode(), hash(feature.getEContainingClass()));
+	}
+
+	private static long hash(EClass clazz) {
+		if (clazz == null)
+			return 0;
+		return clazz.getName().hashCode();
+	}
+
+	private static long step(long h, long value) {
+		h = (h ^ value) * MULTIPLIER;
+		return h ^ (h >>> 29);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xFF51AFD7ED558CCDL;
+		h ^= h >>> 33;
+		h *= 0xC4CEB9FE1A85EC53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
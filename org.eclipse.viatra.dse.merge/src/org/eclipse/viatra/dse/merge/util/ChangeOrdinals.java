@@ -0,0 +1,95 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
+
+/**
+ * Assigns the canonical ordinals of the changes. Local changes come first, then
+ * the remote ones and the ones of further branches, each side in the order of
+ * {@link ChangeComparator}. Attributes contained by {@link Create} changes are
+ * numbered last. The change sets themselves are not reordered.
+ */
+public class ChangeOrdinals {
+
+	private ChangeOrdinals() {
+	}
+
+	/**
+	 * Assigns the ordinals unless every change has one already.
+	 * 
+	 * @return the number of ordinals
+	 */
+	public static int ensure(ChangeSet local, ChangeSet remote) {
+		return ensure(ChangeSets.of(local, remote));
+	}
+
+	/**
+	 * Assigns the ordinals of the sides unless every change has one already.
+	 * 
+	 * @return the number of ordinals
+	 */
+	public static int ensure(List<ChangeSet> changeSets) {
+		int count = 0;
+		for (ChangeSet changeSet : changeSets) {
+			if (changeSet == null)
+				continue;
+			for (Change change : changeSet.getChanges()) {
+				if (change.getOrdinal() < 0)
+					return assign(changeSets);
+				count = Math.max(count, change.getOrdinal() + 1);
+				if (change instanceof Create) {
+					for (Attribute attribute : ((Create) change).getAttributes()) {
+						count = Math.max(count, attribute.getOrdinal() + 1);
+					}
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * @return the number of assigned ordinals
+	 */
+	public static int assign(ChangeSet local, ChangeSet remote) {
+		return assign(ChangeSets.of(local, remote));
+	}
+
+	/**
+	 * @return the number of assigned ordinals
+	 */
+	public static int assign(List<ChangeSet> changeSets) {
+		List<List<Change>> sides = Lists.newArrayList();
+		for (ChangeSet changeSet : changeSets) {
+			sides.add(sorted(changeSet));
+		}
+
+		int ordinal = 0;
+		for (Change change : Iterables.concat(sides)) {
+			change.setOrdinal(ordinal++);
+		}
+		for (Change change : Iterables.concat(sides)) {
+			if (change instanceof Create) {
+				for (Attribute attribute : ((Create) change).getAttributes()) {
+					attribute.setOrdinal(ordinal++);
+				}
+			}
+		}
+		return ordinal;
+	}
+
+	private static List<Change> sorted(ChangeSet changeSet) {
+		if (changeSet == null)
+			return Collections.emptyList();
+		List<Change> changes = Lists.newArrayList(changeSet.getChanges());
+		Collections.sort(changes, ChangeComparator.INSTANCE);
+		return changes;
+	}
+}
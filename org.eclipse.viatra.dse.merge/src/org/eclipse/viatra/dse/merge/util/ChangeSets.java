@@ -0,0 +1,31 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.scope.DSEMergeScope;
+
+import com.google.common.collect.Lists;
+
+/**
+ * The sides of a merge as a list of change sets: local, remote, then the further
+ * branches. The index of a change set is its side; local or remote may be null.
+ */
+public final class ChangeSets {
+
+	private ChangeSets() {
+	}
+
+	public static List<ChangeSet> of(ChangeSet local, ChangeSet remote) {
+		return Arrays.asList(local, remote);
+	}
+
+	public static List<ChangeSet> of(DSEMergeScope scope) {
+		List<ChangeSet> changeSets = Lists.newArrayListWithCapacity(2 + scope.getBranches().size());
+		changeSets.add(scope.getLocal());
+		changeSets.add(scope.getRemote());
+		changeSets.addAll(scope.getBranches());
+		return changeSets;
+	}
+}
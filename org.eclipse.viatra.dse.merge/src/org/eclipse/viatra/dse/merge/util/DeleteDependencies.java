@@ -0,0 +1,97 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.List;
+
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.viatra.dse.merge.DSEMergeStrategy;
+import org.eclipse.viatra.dse.merge.model.Attribute;
+import org.eclipse.viatra.dse.merge.model.Change;
+import org.eclipse.viatra.dse.merge.model.ChangeSet;
+import org.eclipse.viatra.dse.merge.model.Create;
+import org.eclipse.viatra.dse.merge.model.Delete;
+import org.eclipse.viatra.dse.merge.model.Reference;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Multimap;
+
+/**
+ * Computes the delete dependencies of a merge directly on the original model:
+ * a delete of one side depends on every element below the deleted one which
+ * is touched by a change of the other side.
+ * <p>
+ * The index of the original model is built once and can be used for every merge
+ * against copies of the same model, as only the ids of the elements are compared.
+ */
+public class DeleteDependencies {
+
+	private final ElementIndex elements;
+
+	private DeleteDependencies(ElementIndex elements) {
+		this.elements = elements;
+	}
+
+	public static DeleteDependencies of(EObject original) {
+		return new DeleteDependencies(ElementIndex.build(original));
+	}
+
+	public static DeleteDependencies of(ElementIndex elements) {
+		return new DeleteDependencies(elements);
+	}
+
+	public static ImmutableSetMultimap<Object, Integer> compute(EObject original, ChangeSet local, ChangeSet remote) {
+		return of(original).compute(local, remote);
+	}
+
+	/**
+	 * Safe to call concurrently, the index is not modified.
+	 */
+	public ImmutableSetMultimap<Object, Integer> compute(ChangeSet local, ChangeSet remote) {
+		return compute(ChangeSets.of(local, remote));
+	}
+
+	/**
+	 * The deletes of every side depend on the changes of every other side.
+	 */
+	public ImmutableSetMultimap<Object, Integer> compute(List<ChangeSet> changeSets) {
+		ImmutableSetMultimap.Builder<Object, Integer> builder = ImmutableSetMultimap.builder();
+		for (ChangeSet from : changeSets) {
+			for (ChangeSet to : changeSets) {
+				if (from != to)
+					build(from, to, builder);
+			}
+		}
+		return builder.build();
+	}
+
+	private void build(ChangeSet from, ChangeSet to, ImmutableSetMultimap.Builder<Object, Integer> builder) {
+		if (from == null || to == null)
+			return;
+		Multimap<Object, Object> idsNotToDelete = ArrayListMultimap.create();
+
+		for (Change change : from.getChanges()) {
+			if (change instanceof Create) {
+				findParents(DSEMergeStrategy.getId(((Create) change).getContainer()), idsNotToDelete);
+			} else if (change instanceof Attribute) {
+				findParents(DSEMergeStrategy.getId(change.getSrc()), idsNotToDelete);
+			} else if (change instanceof Reference) {
+				findParents(DSEMergeStrategy.getId(change.getSrc()), idsNotToDelete);
+				findParents(DSEMergeStrategy.getId(((Reference) change).getTrg()), idsNotToDelete);
+			}
+		}
+
+		for (Change change : to.getChanges()) {
+			if (change instanceof Delete) {
+				for (Object id : idsNotToDelete.get(DSEMergeStrategy.getId(change.getSrc()))) {
+					builder.put(id, change.getOrdinal());
+				}
+			}
+		}
+	}
+
+	private void findParents(Object original, Multimap<Object, Object> idsNotToDelete) {
+		for (Object id : elements.getAncestorIds(original)) {
+			idsNotToDelete.put(id, original);
+		}
+	}
+}
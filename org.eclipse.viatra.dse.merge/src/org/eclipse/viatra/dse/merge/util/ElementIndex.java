@@ -0,0 +1,291 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.eclipse.emf.common.notify.Notification;
+import org.eclipse.emf.ecore.EAttribute;
+import org.eclipse.emf.ecore.EClass;
+import org.eclipse.emf.ecore.EObject;
+import org.eclipse.emf.ecore.EReference;
+import org.eclipse.emf.ecore.EStructuralFeature;
+import org.eclipse.emf.ecore.util.EContentAdapter;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+
+/**
+ * Index of the model elements by their "id" attribute. Numeric ids are kept in an
+ * open addressing table of primitive longs, string ids in a hash map. The ids of
+ * the containment chain of an element are cached until the element or one of its
+ * containers is moved or gets a new id.
+ * <p>
+ * A snapshot is built with {@link #build(EObject)}; {@link #attach(EObject)}
+ * installs the index as a content adapter, so it follows the elements created and
+ * deleted by the operations.
+ */
+public class ElementIndex extends EContentAdapter {
+
+	private static final Object[] NO_IDS = new Object[0];
+	private static final EStructuralFeature NO_ID_FEATURE = null;
+
+	private final Map<EClass, EStructuralFeature> idFeatures = Maps.newHashMap();
+	private final LongTable numericIds = new LongTable();
+	private final Map<String, EObject> stringIds = Maps.newHashMap();
+	private final Map<Object, Object[]> ancestorIds = Maps.newHashMap();
+
+	private ElementIndex() {
+	}
+
+	/**
+	 * Indexes the contents of the root in one pass. The index is not updated later.
+	 */
+	public static ElementIndex build(EObject root) {
+		ElementIndex index = new ElementIndex();
+		index.put(root);
+		for (Iterator<EObject> iterator = root.eAllContents(); iterator.hasNext();) {
+			index.put(iterator.next());
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index installed on the root, installing a new one if there is none.
+	 */
+	public static ElementIndex attach(EObject root) {
+		for (Object adapter : root.eAdapters()) {
+			if (adapter instanceof ElementIndex)
+				return (ElementIndex) adapter;
+		}
+		ElementIndex index = new ElementIndex();
+		root.eAdapters().add(index);
+		return index;
+	}
+
+	public synchronized EObject get(Object id) {
+		if (id instanceof Integer || id instanceof Long)
+			return numericIds.get(((Number) id).longValue());
+		if (id instanceof String)
+			return stringIds.get(id);
+		return null;
+	}
+
+	/**
+	 * @return the id of the element followed by the ids of its containers, up to the
+	 *         first container without an id; just the id if the element is unknown
+	 */
+	public synchronized Object[] getAncestorIds(Object id) {
+		if (id == null)
+			return NO_IDS;
+		Object[] ids = ancestorIds.get(id);
+		if (ids == null) {
+			List<Object> chain = Lists.newArrayList(id);
+			EObject eObject = get(id);
+			while (eObject != null && eObject.eContainer() != null) {
+				Object parent = idOf(eObject.eContainer());
+				if (parent == null)
+					break;
+				chain.add(parent);
+				eObject = eObject.eContainer();
+			}
+			ids = chain.toArray();
+			ancestorIds.put(id, ids);
+		}
+		return ids;
+	}
+
+	/**
+	 * @return the value of the "id" attribute of the element, or null if it has none
+	 */
+	public synchronized Object idOf(EObject eObject) {
+		EClass eClass = eObject.eClass();
+		EStructuralFeature feature = idFeatures.get(eClass);
+		if (feature == null && !idFeatures.containsKey(eClass)) {
+			feature = eClass.getEStructuralFeature("id");
+			feature = feature instanceof EAttribute ? feature : NO_ID_FEATURE;
+			idFeatures.put(eClass, feature);
+		}
+		return feature == null ? null : eObject.eGet(feature);
+	}
+
+	private void put(EObject eObject) {
+		Object id = idOf(eObject);
+		if (id instanceof Integer || id instanceof Long) {
+			numericIds.put(((Number) id).longValue(), eObject);
+		} else if (id instanceof String) {
+			stringIds.put((String) id, eObject);
+		}
+	}
+
+	private void remove(EObject eObject, Object id) {
+		if (id instanceof Integer || id instanceof Long) {
+			numericIds.remove(((Number) id).longValue(), eObject);
+		} else if (id instanceof String && stringIds.get(id) == eObject) {
+			stringIds.remove(id);
+		}
+	}
+
+	@Override
+	protected synchronized void setTarget(EObject target) {
+		super.setTarget(target);
+		put(target);
+	}
+
+	@Override
+	protected synchronized void unsetTarget(EObject target) {
+		super.unsetTarget(target);
+		remove(target, idOf(target));
+	}
+
+	@Override
+	public synchronized void notifyChanged(Notification notification) {
+		super.notifyChanged(notification);
+		Object feature = notification.getFeature();
+		if (feature instanceof EReference && ((EReference) feature).isContainment()) {
+			evictSubtrees(notification.getOldValue());
+			evictSubtrees(notification.getNewValue());
+		} else if (feature instanceof EAttribute && notification.getNotifier() instanceof EObject
+				&& feature == idFeatures.get(((EObject) notification.getNotifier()).eClass())) {
+			EObject eObject = (EObject) notification.getNotifier();
+			remove(eObject, notification.getOldValue());
+			put(eObject);
+			evict(notification.getOldValue());
+			evictSubtree(eObject);
+		}
+	}
+
+	/**
+	 * Drops the cached chains of the given elements and their contents, the value
+	 * of a containment notification being a single element or a list of them.
+	 */
+	private void evictSubtrees(Object value) {
+		if (value instanceof EObject) {
+			evictSubtree((EObject) value);
+		} else if (value instanceof Collection<?>) {
+			for (Object element : (Collection<?>) value) {
+				if (element instanceof EObject)
+					evictSubtree((EObject) element);
+			}
+		}
+	}
+
+	private void evictSubtree(EObject eObject) {
+		if (ancestorIds.isEmpty())
+			return;
+		evict(idOf(eObject));
+		for (Iterator<EObject> iterator = eObject.eAllContents(); iterator.hasNext();) {
+			evict(idOf(iterator.next()));
+		}
+	}
+
+	/**
+	 * Numeric ids are looked up both as Integer and as Long, so both keys are dropped.
+	 */
+	private void evict(Object id) {
+		if (id == null || ancestorIds.isEmpty())
+			return;
+		if (id instanceof Integer || id instanceof Long) {
+			long value = ((Number) id).longValue();
+			ancestorIds.remove(Long.valueOf(value));
+			if (value == (int) value)
+				ancestorIds.remove(Integer.valueOf((int) value));
+		} else {
+			ancestorIds.remove(id);
+		}
+	}
+
+	@Override
+	protected boolean resolve() {
+		return false;
+	}
+
+	@Override
+	public boolean isAdapterForType(Object type) {
+		return type == ElementIndex.class;
+	}
+
+	/**
+	 * Open addressing hash table from primitive long keys to elements, with linear
+	 * probing and backward shift deletion.
+	 */
+	private static final class LongTable {
+
+		private long[] keys = new long[16];
+		private EObject[] values = new EObject[16];
+		private int size;
+
+		EObject get(long key) {
+			int mask = keys.length - 1;
+			for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+				if (keys[i] == key)
+					return values[i];
+			}
+			return null;
+		}
+
+		void put(long key, EObject value) {
+			if ((size + 1) * 2 > keys.length)
+				grow();
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while (values[i] != null) {
+				if (keys[i] == key) {
+					values[i] = value;
+					return;
+				}
+				i = (i + 1) & mask;
+			}
+			keys[i] = key;
+			values[i] = value;
+			size++;
+		}
+
+		/**
+		 * Removes the key only if it is still mapped to the given element.
+		 */
+		void remove(long key, EObject value) {
+			int mask = keys.length - 1;
+			int i = slot(key, mask);
+			while (values[i] != null && keys[i] != key) {
+				i = (i + 1) & mask;
+			}
+			if (values[i] != value)
+				return;
+			values[i] = null;
+			size--;
+			for (int j = (i + 1) & mask; values[j] != null; j = (j + 1) & mask) {
+				int home = slot(keys[j], mask);
+				if (((j - home) & mask) >= ((j - i) & mask)) {
+					keys[i] = keys[j];
+					values[i] = values[j];
+					values[j] = null;
+					i = j;
+				}
+			}
+		}
+
+		private void grow() {
+			long[] oldKeys = keys;
+			EObject[] oldValues = values;
+			keys = new long[oldKeys.length * 2];
+			values = new EObject[oldValues.length * 2];
+			size = 0;
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldValues[i] != null)
+					put(oldKeys[i], oldValues[i]);
+			}
+		}
+
+		private static int slot(long key, int mask) {
+			long h = key * 0x9E3779B97F4A7C15L;
+			return (int) (h ^ (h >>> 32)) & mask;
+		}
+	}
+
+	@Override
+	public String toString() {
+		return "ElementIndex: " + (numericIds.size + stringIds.size()) + " elements";
+	}
+}
@@ -1,28 +1,43 @@
 package org.eclipse.viatra.dse.merge.util
 
 import org.eclipse.viatra.dse.designspace.api.ITransition
+import org.eclipse.viatra.dse.merge.ActivationCode
 import org.eclipse.viatra.dse.merge.DSEMergeStrategy
 import java.util.Set
 
 class FilterHelper {
 	
+	def static isEmpty(ITransition transition) {
+		val id = transition.getId()
+		if (id instanceof ActivationCode)
+			return false
+		return id.toString().equals("")
+	}
+	
+	def static isMust(ITransition transition) {
+		val id = transition.getId()
+		if (id instanceof ActivationCode)
+			return id.isMust()
+		return id.toString().startsWith(DSEMergeStrategy.MUST_PREFIX)
+	}
+	
 	def static filterEmptyTransitions(Iterable<? extends ITransition> transitions) {
-		return transitions.filter[x | !x.getId().toString().equals("")]
+		return transitions.filter[x | !x.isEmpty]
 	}
 	
 	def static filterMustTransitions(Iterable<? extends ITransition> transitions) {
-		return transitions.filter[x | x.getId().toString().startsWith(DSEMergeStrategy.MUST_PREFIX)]
+		return transitions.filter[x | x.isMust]
 	}
 	
 	def static hasMustTransition(Iterable<? extends ITransition> transitions) {
-		return transitions.exists[x | x.getId().toString().startsWith(DSEMergeStrategy.MUST_PREFIX)]
+		return transitions.exists[x | x.isMust]
 	}
 	
-	def static filterAlreadyUsedTransitions(Iterable<? extends ITransition> transitions, Set<String> usedMustTransitions) {
-		return transitions.filter[x | !usedMustTransitions.contains(x.getId().toString())]
+	def static filterAlreadyUsedTransitions(Iterable<? extends ITransition> transitions, Set<Object> usedMustTransitions) {
+		return transitions.filter[x | !usedMustTransitions.contains(x.getId())]
 	}
 	
-	def static selectTempLiberateMustTransitions(Iterable<? extends ITransition> transitions, Set<String> usedMustTransitions) {
-		return transitions.filter[x | usedMustTransitions.contains(x.getId())].map[x | x.getId().toString()].toList
+	def static selectTempLiberateMustTransitions(Iterable<? extends ITransition> transitions, Set<Object> usedMustTransitions) {
+		return transitions.filter[x | usedMustTransitions.contains(x.getId())].map[x | x.getId()].toList
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,26 @@
+package org.eclipse.viatra.dse.merge.util;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Numbers the patterns of the transformation rules. Shared by the state coders
+ * of one exploration, so every thread assigns the same ordinal to a pattern.
+ */
+public class PatternOrdinals {
+
+	private final ConcurrentMap<String, Integer> ordinals = new ConcurrentHashMap<String, Integer>();
+	private final AtomicInteger next = new AtomicInteger();
+
+	public int get(String patternName) {
+		Integer ordinal = ordinals.get(patternName);
+		if (ordinal == null) {
+			Integer created = next.getAndIncrement();
+			ordinal = ordinals.putIfAbsent(patternName, created);
+			if (ordinal == null)
+				ordinal = created;
+		}
+		return ordinal;
+	}
+}